@@ -0,0 +1,44 @@
+package nazario.emulator;
+
+import nazario.emulator.util.AddressingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// {@link Memory#getAddress} for every {@link AddressingMode} that has an address, with an X and Y index that crosses a page.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressingModeBenchmark {
+    private static final int PC = 0x0600;
+
+    @Param({"RELATIVE", "IMMEDIATE", "ZERO_PAGE", "ZERO_PAGE_X", "ZERO_PAGE_Y", "ABSOLUTE", "ABSOLUTE_X", "ABSOLUTE_Y", "INDIRECT_X", "INDIRECT_Y"})
+    public AddressingMode mode;
+
+    private Memory memory;
+    private Registrars registrars;
+
+    @Setup
+    public void setup() {
+        this.memory = new Memory();
+        this.registrars = new Registrars();
+        this.registrars.registerX = 0x10;
+        this.registrars.registerY = (byte) 0xF0;
+
+        // Operand $20F0 and a pointer to $30F0 in the zero page at $F0 and $00
+        this.memory.writeValue(PC + 1, (byte) 0xF0);
+        this.memory.writeValue(PC + 2, (byte) 0x20);
+        this.memory.writeValue(0xF0, (byte) 0xF0);
+        this.memory.writeValue(0xF1, (byte) 0x30);
+        this.memory.writeValue(0x00, (byte) 0xF0);
+        this.memory.writeValue(0x01, (byte) 0x30);
+    }
+
+    @Benchmark
+    public short getAddress() {
+        return this.memory.getAddress(PC, this.mode, this.registrars);
+    }
+}
@@ -0,0 +1,17 @@
+package nazario.emulator;
+
+import org.openjdk.jmh.annotations.*;
+
+/// Counts the emulated cycles a benchmark actually ran, reported next to its score as `<benchmark>:cycles` in the same ops per time unit.
+///
+/// A run stops on an instruction boundary at or after its cycle budget, so the score of {@link OperationsPerInvocation} is a little low, this counter is exact.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CycleCounter {
+    public long cycles;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.cycles = 0;
+    }
+}
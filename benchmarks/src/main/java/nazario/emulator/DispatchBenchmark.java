@@ -0,0 +1,87 @@
+package nazario.emulator;
+
+import nazario.emulator.util.InstructionInfo;
+import nazario.emulator.util.InstructionsFunction;
+import nazario.emulator.util.Pair;
+import nazario.emulator.util.StopReason;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// The same endless loop run by the table dispatch the original `Main` used and by every execution tier of {@link Cpu}.
+///
+/// One operation is one emulated cycle, so the score in ops/us is the emulated clock in MHz, see {@link CycleCounter} for the exact cycles.
+/// The table dispatch only adds the base cycles of every instruction, taken branches make it run a few more instructions per operation than the cpu.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final int CYCLES = 100_000;
+    private static final int START = 0x0600;
+
+    /// LDX #0; loop: LDA $0200,X; CLC; ADC #1; STA $0200,X; INX; BNE loop; JMP $0600
+    private static final byte[] PROGRAM = {
+            (byte) 0xA2, 0x00,
+            (byte) 0xBD, 0x00, 0x02,
+            0x18,
+            0x69, 0x01,
+            (byte) 0x9D, 0x00, 0x02,
+            (byte) 0xE8,
+            (byte) 0xD0, (byte) 0xF4,
+            0x4C, 0x00, 0x06
+    };
+
+    @Param({"table", "interpreter", "superInstructions", "blockCompiler"})
+    public String dispatch;
+
+    private Pair<InstructionInfo, InstructionsFunction>[] instructions;
+    private Memory memory;
+    private Registrars registrars;
+    private int programCounter;
+    private Cpu cpu;
+
+    @Setup
+    public void setup() {
+        this.memory = new Memory();
+        this.memory.writeBlock(START, PROGRAM, 0, PROGRAM.length);
+        this.registrars = new Registrars();
+        this.programCounter = START;
+        this.instructions = InstructionSet.getInstructions();
+
+        if(this.dispatch.equals("table")) return;
+        this.cpu = new Cpu(this.memory, this.registrars, false);
+        this.cpu.setSuperInstructionsEnabled(this.dispatch.equals("superInstructions"));
+        this.cpu.setBlockCompilerEnabled(this.dispatch.equals("blockCompiler"));
+        this.cpu.setProgramCounter(START);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int run(CycleCounter counter) {
+        if(this.cpu == null) return runTable(counter);
+
+        long before = this.cpu.getCycles();
+        int reason = this.cpu.run(before + CYCLES, Cpu.NO_DEADLINE);
+        if(reason != StopReason.CYCLE_BUDGET) throw new IllegalStateException("Loop stopped with " + StopReason.getName(reason));
+        counter.cycles += this.cpu.getCycles() - before;
+        return this.cpu.getProgramCounter();
+    }
+
+    /// The loop of the original `Main`: look up the opcode in {@link InstructionSet#getInstructions()} and call its handler.
+    private int runTable(CycleCounter counter) {
+        Pair<InstructionInfo, InstructionsFunction>[] instructions = this.instructions;
+        int programCounter = this.programCounter;
+        int cycles = 0;
+        while(cycles < CYCLES) {
+            Pair<InstructionInfo, InstructionsFunction> instructionPair = instructions[Byte.toUnsignedInt(this.memory.getValue(programCounter))];
+            programCounter = Short.toUnsignedInt(instructionPair.right().apply(programCounter, this.memory, this.registrars, instructionPair.left()));
+            cycles += instructionPair.left().cycles();
+        }
+        this.programCounter = programCounter;
+        counter.cycles += cycles;
+        return programCounter;
+    }
+}
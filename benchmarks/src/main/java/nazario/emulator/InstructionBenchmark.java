@@ -0,0 +1,62 @@
+package nazario.emulator;
+
+import nazario.emulator.util.Instruction;
+import nazario.emulator.util.InstructionInfo;
+import nazario.emulator.util.InstructionsFunction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// The handler of every {@link Instruction} in {@link InstructionSet}, called with its first {@link InstructionInfo} the way the table dispatch of {@link DispatchBenchmark} calls it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstructionBenchmark {
+    private static final int PC = 0x0600;
+    private static final short STACK_POINTER = 0x0180;
+
+    @Param({"LDA", "STA", "LDX", "STX", "LDY", "STY",
+            "TAX", "TXA", "TAY", "TYA", "TSX", "TXS",
+            "PHA", "PHP", "PLA", "PLP",
+            "AND", "EOR", "ORA", "BIT",
+            "ADC", "SBC", "CMP", "CMX", "CMY",
+            "INC", "INX", "INY", "DEC", "DEX", "DEY",
+            "ASL", "LSR", "ROL", "ROR",
+            "JMP", "JSR", "RTS",
+            "BCC", "BCS", "BNE", "BEQ", "BPL", "BMI", "BVC", "BVS",
+            "CLC", "CLD", "CLI", "CLV", "SEC", "SED", "SEI",
+            "BRK", "NOP", "RTI"})
+    public String instruction;
+
+    private InstructionsFunction function;
+    private InstructionInfo info;
+    private Memory memory;
+    private Registrars registrars;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        Instruction instruction = (Instruction) InstructionSet.class.getField(this.instruction).get(null);
+        this.function = instruction.getFunction();
+        this.info = instruction.getInfos()[0];
+
+        this.memory = new Memory();
+        this.registrars = new Registrars();
+
+        // Operand $0210 for every addressing mode, a zero page pointer at $10 to $0220
+        this.memory.writeValue(PC, (byte) this.info.opcode());
+        this.memory.writeValue(PC + 1, (byte) 0x10);
+        this.memory.writeValue(PC + 2, (byte) 0x02);
+        this.memory.writeValue(0x10, (byte) 0x20);
+        this.memory.writeValue(0x11, (byte) 0x02);
+    }
+
+    @Benchmark
+    public short execute() {
+        // Stack instructions would run the stack pointer off the end of memory
+        this.memory.stackPointer = STACK_POINTER;
+        return this.function.apply(PC, this.memory, this.registrars, this.info);
+    }
+}
@@ -0,0 +1,64 @@
+package nazario.emulator;
+
+import nazario.emulator.util.StopReason;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/// Runs a whole program for a fixed number of cycles, starting it over from a {@link Snapshot} of its loaded state whenever it stops.
+///
+/// One operation is one emulated cycle, so the score in ops/us is the emulated clock in MHz, see {@link CycleCounter} for the exact cycles. The program path is relative to the directory the benchmarks run in, usually the root of the repository.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramBenchmark {
+    private static final int CYCLES = 1_000_000;
+
+    @Param({"resources/test.bin"})
+    public String program;
+
+    @Param({"0x0600"})
+    public String loadAddress;
+
+    @Param({"interpreter", "superInstructions", "blockCompiler"})
+    public String tier;
+
+    private Cpu cpu;
+    private Snapshot start;
+
+    @Setup
+    public void setup() {
+        if(!Files.exists(Path.of(this.program))) throw new IllegalStateException("No program at " + Path.of(this.program).toAbsolutePath());
+
+        CowMemory memory = new CowMemory();
+        if(Loader.loadProgram(this.program, Integer.decode(this.loadAddress), memory) == null) throw new IllegalStateException("Could not load " + this.program);
+
+        this.cpu = new Cpu(memory, new Registrars(), false);
+        this.cpu.setSuperInstructionsEnabled(this.tier.equals("superInstructions"));
+        this.cpu.setBlockCompilerEnabled(this.tier.equals("blockCompiler"));
+        this.cpu.reset();
+        this.start = this.cpu.snapshot();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public long run(CycleCounter counter) {
+        long remaining = CYCLES;
+        while(true) {
+            long before = this.cpu.getCycles();
+            int reason = this.cpu.run(before + remaining, Cpu.NO_DEADLINE);
+            long ran = this.cpu.getCycles() - before;
+            counter.cycles += ran;
+            if(reason == StopReason.CYCLE_BUDGET) return this.cpu.getInstructionCount();
+            if(ran == 0) throw new IllegalStateException("Program stops right away with " + StopReason.getName(reason));
+
+            remaining -= ran;
+            this.start.restore(this.cpu);
+        }
+    }
+}
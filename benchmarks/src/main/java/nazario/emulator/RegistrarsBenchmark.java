@@ -0,0 +1,52 @@
+package nazario.emulator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// Packing and unpacking the processor status, in {@link Registrars} with a boolean per flag and in {@link PackedRegistrars} the {@link Cpu} runs on.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrarsBenchmark {
+    private final Registrars registrars = new Registrars();
+    private final PackedRegistrars packedRegistrars = new PackedRegistrars();
+
+    // Changes with every call, so the flags are not constant folded
+    private byte status = (byte) 0xA5;
+
+    @Benchmark
+    public byte getProcessorStatus() {
+        return this.registrars.getProcessorStatus();
+    }
+
+    @Benchmark
+    public void setProcessorStatus() {
+        this.registrars.setProcessorStatus(this.status++);
+    }
+
+    @Benchmark
+    public byte roundTrip() {
+        this.registrars.setProcessorStatus(this.status++);
+        return this.registrars.getProcessorStatus();
+    }
+
+    @Benchmark
+    public byte packedGetProcessorStatus() {
+        return this.packedRegistrars.getProcessorStatus();
+    }
+
+    @Benchmark
+    public void packedSetProcessorStatus() {
+        this.packedRegistrars.setProcessorStatus(this.status++);
+    }
+
+    @Benchmark
+    public byte packedRoundTrip() {
+        this.packedRegistrars.setProcessorStatus(this.status++);
+        return this.packedRegistrars.getProcessorStatus();
+    }
+}
@@ -0,0 +1,175 @@
+package nazario.emulator;
+
+import nazario.emulator.util.BatchResult;
+import nazario.emulator.util.LoadedProgram;
+import nazario.emulator.util.StopReason;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/// Runs a directory or manifest of programs on a bounded thread pool in one JVM and streams a {@link BatchResult} per program as JSON lines.
+///
+/// Every program runs on its own {@link Cpu} until it stops, see {@link StopReason}, or until it used up its cycle or wall clock budget. Results are written in the order the runs complete.
+public class BatchRunner {
+    /// Status of a program that could not be loaded, every other status is the name of a {@link StopReason} or {@link #RUN_ERROR}.
+    public static final String LOAD_ERROR = "LOAD_ERROR";
+    /// Status of a program whose run failed with an exception, the other programs of the batch keep running.
+    public static final String RUN_ERROR = "RUN_ERROR";
+
+    protected final int threads;
+    protected final long maxCycles;
+    protected final long maxNanos;
+    protected final int loadAddress;
+    protected final boolean illegalOpcodes;
+    protected final boolean blockCompiler;
+    protected final boolean superInstructions;
+    protected final List<int[]> ranges = new ArrayList<>();
+
+    public BatchRunner(int threads, long maxCycles, long maxNanos, int loadAddress, boolean illegalOpcodes, boolean blockCompiler, boolean superInstructions) {
+        this.threads = threads;
+        this.maxCycles = maxCycles;
+        this.maxNanos = maxNanos;
+        this.loadAddress = loadAddress;
+        this.illegalOpcodes = illegalOpcodes;
+        this.blockCompiler = blockCompiler;
+        this.superInstructions = superInstructions;
+    }
+
+    /// Adds the memory from start to end, inclusive, to the ranges dumped into every result.
+    public void addRange(int start, int end) {
+        if(start < 0 || end > 0xFFFF || end < start) throw new IllegalArgumentException(String.format("Invalid memory range $%X-$%X", start, end));
+        this.ranges.add(new int[] {start, end});
+    }
+
+    /// Runs every program and writes a line of JSON per program to writer as soon as it completes, returns the number of programs run.
+    public int run(List<Path> programs, Writer writer) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        CompletionService<BatchResult> completion = new ExecutorCompletionService<>(executor);
+        try {
+            // Each task loads its program when it starts, so at most threads machines exist at once
+            for(Path program : programs) completion.submit(() -> run(program));
+
+            for(int i = 0;i<programs.size();i++) {
+                writer.write(completion.take().get().toJson());
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return programs.size();
+    }
+
+    /// Loads and runs a single program on a new machine.
+    public BatchResult run(Path program) {
+        Memory memory = new Memory();
+        LoadedProgram loaded;
+        try {
+            loaded = ProgramLoader.load(program, this.loadAddress, memory);
+        } catch (Exception e) {
+            return new BatchResult(program.toString(), null, LOAD_ERROR, String.valueOf(e.getMessage()), 0, 0, 0, 0, 0, 0, 0, 0, 0, null, Map.of());
+        }
+
+        try {
+            Cpu cpu = new Cpu(memory, new Registrars(), this.illegalOpcodes);
+            cpu.setBlockCompilerEnabled(this.blockCompiler);
+            cpu.setSuperInstructionsEnabled(this.superInstructions);
+            cpu.reset();
+
+            long start = System.nanoTime();
+            int reason = cpu.run(this.maxCycles, start + this.maxNanos);
+            long elapsed = System.nanoTime() - start;
+
+            return result(program, loaded, cpu, StopReason.getName(reason), elapsed);
+        } catch (RuntimeException e) {
+            return new BatchResult(program.toString(), loaded.format().name(), RUN_ERROR, e.toString(), 0, 0, 0, 0, 0, 0, 0, 0, 0, null, Map.of());
+        }
+    }
+
+    protected BatchResult result(Path program, LoadedProgram loaded, Cpu cpu, String status, long elapsed) {
+        PackedRegistrars registrars = cpu.getPackedRegistrars();
+        byte[] image = cpu.getMemory().getMemory();
+
+        CRC32C crc = new CRC32C();
+        crc.update(image, 0, 0x10000);
+
+        Map<String, String> dumps = new LinkedHashMap<>();
+        for(int[] range : this.ranges) dumps.put(String.format("%04X-%04X", range[0], range[1]), HexFormat.of().withUpperCase().formatHex(image, range[0], range[1] + 1));
+
+        return new BatchResult(program.toString(), loaded.format().name(), status, null, cpu.getInstructionCount(), cpu.getCycles(), elapsed,
+                cpu.getProgramCounter(), registrars.getAccumulator() & 0xFF, registrars.getRegisterX() & 0xFF, registrars.getRegisterY() & 0xFF,
+                cpu.getMemory().getStackPointer() & 0xFFFF, registrars.getProcessorStatus() & 0xFF, String.format("%08x", crc.getValue()), dumps);
+    }
+
+    /// Lists the regular files of a directory in name order, or the programs of a manifest.
+    ///
+    /// A manifest has one path per line, relative paths are resolved against the directory of the manifest and blank lines and lines starting with `#` are skipped.
+    public static List<Path> listPrograms(Path source) throws IOException {
+        if(Files.isDirectory(source)) {
+            try(Stream<Path> files = Files.list(source)) {
+                return files.filter(Files::isRegularFile).sorted().toList();
+            }
+        }
+
+        Path directory = source.toAbsolutePath().getParent();
+        List<Path> programs = new ArrayList<>();
+        for(String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+            line = line.strip();
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            programs.add(directory.resolve(line));
+        }
+        return programs;
+    }
+
+    /// Usage: `<directory or manifest> [--output file] [--threads n] [--cycles n] [--time-ms n] [--load-address a] [--range start-end]... [--illegal-opcodes] [--block-compiler] [--super-instructions]`
+    ///
+    /// Writes the results to standard output unless an output file is given. The default budget is 10 million cycles and 10 seconds per program.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean illegalOpcodes = arguments.remove("--illegal-opcodes");
+        boolean blockCompiler = arguments.remove("--block-compiler");
+        boolean superInstructions = arguments.remove("--super-instructions");
+
+        String output = option(arguments, "--output", null);
+        int threads = Integer.parseInt(option(arguments, "--threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long maxCycles = Long.decode(option(arguments, "--cycles", "10000000"));
+        long maxNanos = Long.parseLong(option(arguments, "--time-ms", "10000")) * 1_000_000L;
+        int loadAddress = Integer.decode(option(arguments, "--load-address", "0x0600"));
+
+        List<int[]> ranges = new ArrayList<>();
+        String range;
+        while((range = option(arguments, "--range", null)) != null) {
+            String[] bounds = range.split("-", 2);
+            ranges.add(new int[] {Integer.decode(bounds[0]), Integer.decode(bounds[1])});
+        }
+
+        BatchRunner runner = new BatchRunner(threads, maxCycles, maxNanos, loadAddress, illegalOpcodes, blockCompiler, superInstructions);
+        for(int[] bounds : ranges) runner.addRange(bounds[0], bounds[1]);
+
+        List<Path> programs = listPrograms(Path.of(arguments.get(0)));
+        Writer writer = output == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8) : Files.newBufferedWriter(Path.of(output), StandardCharsets.UTF_8);
+        try {
+            runner.run(programs, writer);
+        } finally {
+            if(output == null) writer.flush();
+            else writer.close();
+        }
+    }
+
+    /// Removes the option and its value from arguments and returns the value, or fallback if the option is missing.
+    private static String option(List<String> arguments, String name, String fallback) {
+        int index = arguments.indexOf(name);
+        if(index == -1) return fallback;
+
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
+}
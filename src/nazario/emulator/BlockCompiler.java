@@ -0,0 +1,427 @@
+package nazario.emulator;
+
+import nazario.emulator.util.AddressingMode;
+import nazario.emulator.util.ClassFileWriter;
+import nazario.emulator.util.ClassFileWriter.Code;
+import nazario.emulator.util.ClassFileWriter.Label;
+import nazario.emulator.util.CompiledBlock;
+import nazario.emulator.util.Instruction;
+import nazario.emulator.util.InstructionInfo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/// Second execution tier of {@link Cpu}, translates hot basic blocks into JVM bytecode.
+///
+/// The interpreter reports every taken backward branch and jump through {@link #backEdge(int)}; once a target has been reached {@link #COMPILE_THRESHOLD} times the straight line code starting there is compiled into a hidden class implementing {@link CompiledBlock}.
+/// The generated method calls the same operation methods of {@link Cpu} the interpreter switch does, with the operand and base cycles of every instruction as constants, so the JIT can inline the whole block and optimize across instruction boundaries.
+/// A block that ends with a branch or jump back to its own start loops inside the generated method.
+///
+/// A compiled block hands control back to the interpreter
+/// - before an instruction it does not compile (BRK, JMP indirect and the opcodes of {@link IllegalInstructionSet}),
+/// - before a stack operation when the stack pointer is close enough to its limits to fault,
+/// - right after a write that dropped a cached instruction from the {@link DecodeCache}, so self modifying code always runs in the interpreter,
+/// - after a pass of a loop that reached the cycle limit passed to {@link CompiledBlock#execute(Cpu, long)}, or after {@link #LOOP_ITERATIONS} passes, so the run loop regains control in time for its budgets,
+/// - at $FFFF, instructions are never compiled across the end of the address space.
+///
+/// The instructions of a block are checked against the {@link DecodeCache} whenever it has dropped entries since the last check, a block that was overwritten is discarded and compiled again once it is hot.
+public class BlockCompiler {
+    public static final int COMPILE_THRESHOLD = 64;
+    public static final int MAX_BLOCK_LENGTH = 32;
+    public static final int LOOP_ITERATIONS = 4096;
+
+    private static final String CPU = "nazario/emulator/Cpu";
+    private static final String COMPILER = "nazario/emulator/BlockCompiler";
+    private static final String PACKED_REGISTRARS = "nazario/emulator/PackedRegistrars";
+
+    // Locals of the generated execute method
+    private static final int CPU_LOCAL = 1;
+    private static final int CYCLE_LIMIT_LOCAL = 2;
+    private static final int INVALIDATIONS_LOCAL = 4;
+    private static final int ITERATIONS_LOCAL = 5;
+
+    // Shared by every compiler until its first back edge, so that enabling it on a new cpu, e.g. a fork, costs nothing until it runs
+    private static final Block[] NO_BLOCKS = new Block[0x10000];
+    private static final int[] NO_BACK_EDGES = new int[0x10000];
+
+    protected final Cpu cpu;
+    protected Block[] blocks = NO_BLOCKS;
+    protected int[] backEdges = NO_BACK_EDGES;
+    protected int compiledBlocks;
+
+    public BlockCompiler(Cpu cpu) {
+        this.cpu = cpu;
+    }
+
+    /// Number of blocks compiled so far, including blocks that were discarded later.
+    public int getCompiledBlocks() {
+        return this.compiledBlocks;
+    }
+
+    /// Returns the compiled block starting at address, or null if there is none or it has been overwritten.
+    public CompiledBlock getBlock(int address) {
+        Block block = this.blocks[address];
+        if(block == null) return null;
+
+        DecodeCache decodeCache = this.cpu.decodeCache;
+        if(block.validatedAt != decodeCache.invalidations) {
+            if(!block.isValid(decodeCache)) {
+                this.blocks[address] = null;
+                this.backEdges[address] = 0;
+
+                EmulatorEvents.BlockInvalidation event = new EmulatorEvents.BlockInvalidation();
+                if(event.shouldCommit()) {
+                    event.machine = this.cpu.getMachineId();
+                    event.startAddress = address;
+                    event.commit();
+                }
+                return null;
+            }
+            block.validatedAt = decodeCache.invalidations;
+        }
+        return block.code;
+    }
+
+    /// Called by the interpreter for every taken branch or jump to a lower address.
+    public void backEdge(int target) {
+        if(this.backEdges == NO_BACK_EDGES) {
+            this.blocks = new Block[0x10000];
+            this.backEdges = new int[0x10000];
+        }
+        if(++this.backEdges[target] == COMPILE_THRESHOLD) this.blocks[target] = compile(target);
+    }
+
+    //region * Compilation *
+    /// Decodes the block starting at start and compiles it, returns null if its first instruction can not be compiled.
+    protected Block compile(int start) {
+        EmulatorEvents.BlockCompilation event = new EmulatorEvents.BlockCompilation();
+        event.begin();
+
+        int[] addresses = new int[MAX_BLOCK_LENGTH];
+        int[] entries = new int[MAX_BLOCK_LENGTH];
+        int count = 0;
+
+        int pc = start;
+        while(count < MAX_BLOCK_LENGTH) {
+            int entry = this.cpu.decode(pc);
+            Template template = TEMPLATES[DecodeCache.opcode(entry)];
+            if(template == null || pc + DecodeCache.length(entry) > 0x10000) break;
+
+            addresses[count] = pc;
+            entries[count] = entry;
+            count++;
+
+            if(template.kind.endsBlock) break;
+            pc += DecodeCache.length(entry);
+        }
+        if(count == 0) return null;
+
+        int[] blockAddresses = new int[count];
+        int[] blockEntries = new int[count];
+        System.arraycopy(addresses, 0, blockAddresses, 0, count);
+        System.arraycopy(entries, 0, blockEntries, 0, count);
+
+        byte[] bytes = generate(start, blockAddresses, blockEntries);
+        Block block = new Block(define(start, bytes), blockAddresses, blockEntries);
+        block.validatedAt = this.cpu.decodeCache.invalidations;
+        this.compiledBlocks++;
+
+        if(event.shouldCommit()) {
+            event.machine = this.cpu.getMachineId();
+            event.startAddress = start;
+            event.instructions = count;
+            event.bytecodeSize = bytes.length;
+            event.commit();
+        }
+        return block;
+    }
+
+    private static byte[] generate(int start, int[] addresses, int[] entries) {
+        ClassFileWriter writer = new ClassFileWriter(ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER, String.format("nazario/emulator/Block$%04X", start), "java/lang/Object", "nazario/emulator/util/CompiledBlock");
+
+        Code constructor = writer.method(ClassFileWriter.ACC_PUBLIC, "<init>", "()V");
+        constructor.aload(0).invokespecial("java/lang/Object", "<init>", "()V").vreturn();
+        constructor.end(1, 1);
+
+        Code code = writer.method(ClassFileWriter.ACC_PUBLIC, "execute", "(L" + CPU + ";J)I");
+        code.aload(CPU_LOCAL).getfield(CPU, "decodeCache", "Lnazario/emulator/DecodeCache;").getfield("nazario/emulator/DecodeCache", "invalidations", "I").istore(INVALIDATIONS_LOCAL);
+        code.push(0).istore(ITERATIONS_LOCAL);
+
+        Label top = new Label();
+        code.bind(top);
+
+        int cycles = 0;
+        int last = addresses.length - 1;
+        for(int i = 0;i<=last;i++) {
+            int pc = addresses[i];
+            int opcode = DecodeCache.opcode(entries[i]);
+            int operand = DecodeCache.operand(entries[i]);
+            int next = pc + DecodeCache.length(entries[i]);
+            Template template = TEMPLATES[opcode];
+
+            if(template.usesStack) {
+                Label safe = new Label();
+                code.aload(CPU_LOCAL).invokestatic(COMPILER, "stackMayFault", "(L" + CPU + ";)Z").ifeq(safe);
+                exit(code, i, cycles, pc);
+                code.bind(safe);
+            }
+
+            int instructions = i + 1;
+            cycles += template.cycles;
+
+            switch(template.kind) {
+                case READ -> {
+                    code.aload(CPU_LOCAL);
+                    if(template.mode == AddressingMode.IMMEDIATE) {
+                        code.push((byte) operand);
+                    } else {
+                        code.aload(CPU_LOCAL);
+                        address(code, template.mode, operand, true);
+                        code.invokevirtual(CPU, "read", "(I)B");
+                    }
+                    code.invokevirtual(CPU, template.method, "(B)V");
+                }
+                case STORE, MODIFY -> {
+                    code.aload(CPU_LOCAL);
+                    if(template.mode == AddressingMode.ACCUMULATOR) code.push(-1);
+                    else address(code, template.mode, operand, false);
+                    code.invokevirtual(CPU, template.method, "(I)V");
+                }
+                case IMPLIED -> {
+                    if(template.method != null) code.aload(CPU_LOCAL).invokevirtual(CPU, template.method, "()V");
+                }
+                case BRANCH -> {
+                    int target = (next + (byte) operand) & 0xFFFF;
+                    int penalty = ((next ^ target) & 0xFF00) == 0 ? 1 : 2;
+
+                    Label notTaken = new Label();
+                    code.aload(CPU_LOCAL).getfield(CPU, "registrars", "L" + PACKED_REGISTRARS + ";").invokevirtual(PACKED_REGISTRARS, template.method, "()Z");
+                    if(template.condition) code.ifeq(notTaken);
+                    else code.ifne(notTaken);
+                    jump(code, start, target, top, instructions, cycles + penalty);
+                    code.bind(notTaken);
+                    exit(code, instructions, cycles, next & 0xFFFF);
+                    continue;
+                }
+                case JUMP -> {
+                    jump(code, start, operand, top, instructions, cycles);
+                    continue;
+                }
+                case CALL -> {
+                    code.aload(CPU_LOCAL).push(pc).invokevirtual(CPU, "jsr", "(I)V");
+                    exit(code, instructions, cycles, operand);
+                    continue;
+                }
+                case RETURN -> {
+                    code.aload(CPU_LOCAL).push(instructions).push(cycles).aload(CPU_LOCAL).invokevirtual(CPU, "rts", "()I");
+                    code.invokestatic(COMPILER, "exit", "(L" + CPU + ";III)I").ireturn();
+                    continue;
+                }
+            }
+
+            if(template.writes && template.mode != AddressingMode.ACCUMULATOR) {
+                Label unchanged = new Label();
+                code.aload(CPU_LOCAL).iload(INVALIDATIONS_LOCAL).invokestatic(COMPILER, "codeChanged", "(L" + CPU + ";I)Z").ifeq(unchanged);
+                exit(code, instructions, cycles, next & 0xFFFF);
+                code.bind(unchanged);
+            }
+
+            if(i == last) exit(code, instructions, cycles, next & 0xFFFF);
+        }
+
+        code.end(6, 6);
+        return writer.toByteArray();
+    }
+
+    /// Pushes the effective address of a zero page, absolute or indexed operand, the read variants add the page crossing cycle.
+    private static void address(Code code, AddressingMode mode, int operand, boolean read) {
+        switch(mode) {
+            case ZERO_PAGE, ABSOLUTE -> code.push(operand);
+            case ZERO_PAGE_X -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, "zeroPageX", "(I)I");
+            case ZERO_PAGE_Y -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, "zeroPageY", "(I)I");
+            case ABSOLUTE_X -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, read ? "absoluteXRead" : "absoluteX", "(I)I");
+            case ABSOLUTE_Y -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, read ? "absoluteYRead" : "absoluteY", "(I)I");
+            case INDIRECT_X -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, "indirectX", "(I)I");
+            case INDIRECT_Y -> code.aload(CPU_LOCAL).push(operand).invokevirtual(CPU, read ? "indirectYRead" : "indirectY", "(I)I");
+            default -> throw new UnsupportedOperationException("Unsupported addressing mode: " + mode);
+        }
+    }
+
+    /// Leaves the block for target, or loops if target is the start of the block.
+    private static void jump(Code code, int start, int target, Label top, int instructions, int cycles) {
+        if(target != start) {
+            exit(code, instructions, cycles, target);
+            return;
+        }
+
+        Label leave = new Label();
+        code.aload(CPU_LOCAL).push(instructions).push(cycles).lload(CYCLE_LIMIT_LOCAL).invokestatic(COMPILER, "loop", "(L" + CPU + ";IIJ)Z").ifeq(leave);
+        code.iinc(ITERATIONS_LOCAL, 1).iload(ITERATIONS_LOCAL).push(LOOP_ITERATIONS).ifIcmplt(top);
+        code.bind(leave);
+        code.push(start).ireturn();
+    }
+
+    private static void exit(Code code, int instructions, int cycles, int next) {
+        code.aload(CPU_LOCAL).push(instructions).push(cycles).push(next);
+        code.invokestatic(COMPILER, "exit", "(L" + CPU + ";III)I").ireturn();
+    }
+
+    private static CompiledBlock define(int start, byte[] bytes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledBlock) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to compile block at " + Integer.toHexString(start), e);
+        }
+    }
+    //endregion
+
+    //region * Called by compiled blocks *
+    static void count(Cpu cpu, int instructions, int cycles) {
+        cpu.instructionCount += instructions;
+        cpu.cycles += cycles;
+    }
+
+    /// Counts one pass of a block that loops on itself and returns whether it may loop again.
+    static boolean loop(Cpu cpu, int instructions, int cycles, long cycleLimit) {
+        count(cpu, instructions, cycles);
+        return cpu.cycles < cycleLimit;
+    }
+
+    static int exit(Cpu cpu, int instructions, int cycles, int next) {
+        count(cpu, instructions, cycles);
+        return next;
+    }
+
+    static boolean codeChanged(Cpu cpu, int invalidations) {
+        return cpu.decodeCache.invalidations != invalidations;
+    }
+
+    /// JSR and RTS move the stack pointer by two, so anything closer than that to either end of the stack array is left to the interpreter.
+    static boolean stackMayFault(Cpu cpu) {
+        short stackPointer = cpu.memory.stackPointer;
+        return stackPointer < 2 || stackPointer > Short.MAX_VALUE - 2;
+    }
+    //endregion
+
+    protected static class Block {
+        protected final CompiledBlock code;
+        protected final int[] addresses;
+        protected final int[] entries;
+        protected int validatedAt;
+
+        protected Block(CompiledBlock code, int[] addresses, int[] entries) {
+            this.code = code;
+            this.addresses = addresses;
+            this.entries = entries;
+        }
+
+        /// A block is valid as long as every one of its instructions is still cached unchanged.
+        protected boolean isValid(DecodeCache decodeCache) {
+            for(int i = 0;i<this.addresses.length;i++) {
+                if(decodeCache.entries[this.addresses[i]] != this.entries[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    private enum Kind {
+        READ, STORE, MODIFY, IMPLIED, BRANCH(true), JUMP(true), CALL(true), RETURN(true);
+
+        private final boolean endsBlock;
+
+        Kind() {
+            this(false);
+        }
+
+        Kind(boolean endsBlock) {
+            this.endsBlock = endsBlock;
+        }
+    }
+
+    /// How to compile one opcode, method is the {@link Cpu} operation for it (or the {@link PackedRegistrars} flag a branch tests).
+    private record Template(Kind kind, String method, boolean condition, AddressingMode mode, int cycles, boolean writes, boolean usesStack) {
+    }
+
+    /// Indexed by opcode, null for opcodes that are never compiled.
+    private static final Template[] TEMPLATES = new Template[0x100];
+
+    static {
+        register(Kind.READ, "lda", InstructionSet.LDA);
+        register(Kind.READ, "ldx", InstructionSet.LDX);
+        register(Kind.READ, "ldy", InstructionSet.LDY);
+        register(Kind.READ, "and", InstructionSet.AND);
+        register(Kind.READ, "eor", InstructionSet.EOR);
+        register(Kind.READ, "ora", InstructionSet.ORA);
+        register(Kind.READ, "bit", InstructionSet.BIT);
+        register(Kind.READ, "adc", InstructionSet.ADC);
+        register(Kind.READ, "sbc", InstructionSet.SBC);
+        register(Kind.READ, "cmp", InstructionSet.CMP);
+        register(Kind.READ, "cpx", InstructionSet.CMX);
+        register(Kind.READ, "cpy", InstructionSet.CMY);
+
+        register(Kind.STORE, "sta", InstructionSet.STA);
+        register(Kind.STORE, "stx", InstructionSet.STX);
+        register(Kind.STORE, "sty", InstructionSet.STY);
+
+        register(Kind.MODIFY, "increment", InstructionSet.INC);
+        register(Kind.MODIFY, "decrement", InstructionSet.DEC);
+        register(Kind.MODIFY, "asl", InstructionSet.ASL);
+        register(Kind.MODIFY, "lsr", InstructionSet.LSR);
+        register(Kind.MODIFY, "rol", InstructionSet.ROL);
+        register(Kind.MODIFY, "ror", InstructionSet.ROR);
+
+        register(Kind.IMPLIED, "tax", InstructionSet.TAX);
+        register(Kind.IMPLIED, "txa", InstructionSet.TXA);
+        register(Kind.IMPLIED, "tay", InstructionSet.TAY);
+        register(Kind.IMPLIED, "tya", InstructionSet.TYA);
+        register(Kind.IMPLIED, "tsx", InstructionSet.TSX);
+        register(Kind.IMPLIED, "txs", InstructionSet.TXS);
+        register(Kind.IMPLIED, "pha", InstructionSet.PHA);
+        register(Kind.IMPLIED, "php", InstructionSet.PHP);
+        register(Kind.IMPLIED, "pla", InstructionSet.PLA);
+        register(Kind.IMPLIED, "plp", InstructionSet.PLP);
+        register(Kind.IMPLIED, "inx", InstructionSet.INX);
+        register(Kind.IMPLIED, "iny", InstructionSet.INY);
+        register(Kind.IMPLIED, "dex", InstructionSet.DEX);
+        register(Kind.IMPLIED, "dey", InstructionSet.DEY);
+        register(Kind.IMPLIED, "clc", InstructionSet.CLC);
+        register(Kind.IMPLIED, "cld", InstructionSet.CLD);
+        register(Kind.IMPLIED, "cli", InstructionSet.CLI);
+        register(Kind.IMPLIED, "clv", InstructionSet.CLV);
+        register(Kind.IMPLIED, "sec", InstructionSet.SEC);
+        register(Kind.IMPLIED, "sed", InstructionSet.SED);
+        register(Kind.IMPLIED, "sei", InstructionSet.SEI);
+        register(Kind.IMPLIED, "rti", InstructionSet.RTI);
+        register(Kind.IMPLIED, null, InstructionSet.NOP);
+
+        registerBranch("isCarry", false, InstructionSet.BCC);
+        registerBranch("isCarry", true, InstructionSet.BCS);
+        registerBranch("isZero", false, InstructionSet.BNE);
+        registerBranch("isZero", true, InstructionSet.BEQ);
+        registerBranch("isNegative", false, InstructionSet.BPL);
+        registerBranch("isNegative", true, InstructionSet.BMI);
+        registerBranch("isOverflow", false, InstructionSet.BVC);
+        registerBranch("isOverflow", true, InstructionSet.BVS);
+
+        register(Kind.JUMP, null, InstructionSet.JMP);
+        register(Kind.CALL, null, InstructionSet.JSR);
+        register(Kind.RETURN, null, InstructionSet.RTS);
+    }
+
+    private static void register(Kind kind, String method, Instruction instruction) {
+        boolean writes = kind == Kind.STORE || kind == Kind.MODIFY || "pha".equals(method) || "php".equals(method) || "txs".equals(method);
+        boolean usesStack = kind == Kind.CALL || kind == Kind.RETURN || "pha".equals(method) || "php".equals(method) || "pla".equals(method) || "plp".equals(method);
+
+        for(InstructionInfo info : instruction.getInfos()) {
+            if(kind == Kind.JUMP && info.mode() != AddressingMode.ABSOLUTE) continue; // JMP indirect faults in the interpreter
+            TEMPLATES[info.opcode()] = new Template(kind, method, false, info.mode(), info.cycles(), writes, usesStack);
+        }
+    }
+
+    private static void registerBranch(String flag, boolean condition, Instruction instruction) {
+        for(InstructionInfo info : instruction.getInfos()) {
+            TEMPLATES[info.opcode()] = new Template(Kind.BRANCH, flag, condition, info.mode(), info.cycles(), false, false);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package nazario.emulator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/// Attributes the cycles of a {@link Cpu} to the 6502 subroutines running them, see {@link Cpu#setCallStackProfiler(CallStackProfiler)}.
+///
+/// A shadow call stack is kept from the JSR and RTS instructions, every instruction adds its cycles to the node of the current call stack in a calling context tree.
+/// Inclusive and exclusive cycles per subroutine and collapsed stacks for flame graphs are derived from the tree when the report is made, recursive calls are only counted once towards the inclusive cycles.
+///
+/// Frames are matched by the stack pointer rather than the return address: an RTS leaves every frame whose JSR pushed above the stack pointer it pulls back to.
+/// So an RTS used as a jump, e.g. into a jump table, leaves the frame it runs in, and frames abandoned by resetting the stack are dropped with the next RTS.
+/// The 6502 has no interrupts in this emulator yet, so there is nothing else that enters or leaves a frame.
+public class CallStackProfiler {
+    public static final int MAX_DEPTH = 4096;
+
+    private static final int ROOT = 0;
+    private static final int NO_ADDRESS = -1;
+
+    // Calling context tree, node 0 is the root
+    protected int[] nodeAddress = new int[1024];
+    protected int[] nodeParent = new int[1024];
+    protected long[] nodeCycles = new long[1024];
+    protected long[] nodeCalls = new long[1024];
+    protected int nodes = 1;
+
+    // Open addressing map from (parent node, address) to child node
+    protected long[] childKeys = new long[2048];
+    protected int[] childNodes = new int[2048];
+
+    // Shadow stack
+    protected final int[] frameNodes = new int[MAX_DEPTH + 1];
+    protected final int[] frameStackPointers = new int[MAX_DEPTH + 1];
+    protected int depth;
+    protected long overflows;
+
+    protected final Map<Integer, String> symbols = new HashMap<>();
+
+    public CallStackProfiler() {
+        this.nodeAddress[ROOT] = NO_ADDRESS;
+        this.nodeParent[ROOT] = -1;
+        Arrays.fill(this.childKeys, -1);
+        this.frameNodes[0] = ROOT;
+        this.frameStackPointers[0] = Integer.MIN_VALUE;
+    }
+
+    /// Called by {@link Cpu} after every instruction with the address of the next instruction, the stack pointer and the cycles it took.
+    void instruction(int opcode, int next, int stackPointer, long cycles) {
+        int node = this.frameNodes[this.depth];
+        this.nodeCycles[node] += cycles;
+
+        if(opcode == 0x20) call(node, next, stackPointer);
+        else if(opcode == 0x60) ret(stackPointer);
+    }
+
+    private void call(int parent, int address, int stackPointer) {
+        if(this.depth == MAX_DEPTH) {
+            this.overflows++;
+            return;
+        }
+
+        int node = child(parent, address);
+        this.nodeCalls[node]++;
+        this.depth++;
+        this.frameNodes[this.depth] = node;
+        this.frameStackPointers[this.depth] = stackPointer;
+    }
+
+    private void ret(int stackPointer) {
+        while(this.frameStackPointers[this.depth] > stackPointer) this.depth--;
+    }
+
+    /// Returns the node for a call of address from parent, adding it to the tree on the first call.
+    private int child(int parent, int address) {
+        long key = (long) parent << 16 | address;
+        int mask = this.childKeys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while(this.childKeys[slot] != -1) {
+            if(this.childKeys[slot] == key) return this.childNodes[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        int node = this.nodes++;
+        if(node == this.nodeAddress.length) {
+            int length = node * 2;
+            this.nodeAddress = Arrays.copyOf(this.nodeAddress, length);
+            this.nodeParent = Arrays.copyOf(this.nodeParent, length);
+            this.nodeCycles = Arrays.copyOf(this.nodeCycles, length);
+            this.nodeCalls = Arrays.copyOf(this.nodeCalls, length);
+        }
+        this.nodeAddress[node] = address;
+        this.nodeParent[node] = parent;
+
+        this.childKeys[slot] = key;
+        this.childNodes[slot] = node;
+        if(this.nodes * 2 > this.childKeys.length) rehash();
+        return node;
+    }
+
+    private void rehash() {
+        long[] keys = this.childKeys;
+        int[] values = this.childNodes;
+        this.childKeys = new long[keys.length * 2];
+        this.childNodes = new int[keys.length * 2];
+        Arrays.fill(this.childKeys, -1);
+
+        int mask = this.childKeys.length - 1;
+        for(int i = 0;i<keys.length;i++) {
+            if(keys[i] == -1) continue;
+            int slot = Long.hashCode(keys[i] * 0x9E3779B97F4A7C15L) & mask;
+            while(this.childKeys[slot] != -1) slot = (slot + 1) & mask;
+            this.childKeys[slot] = keys[i];
+            this.childNodes[slot] = values[i];
+        }
+    }
+
+    /// Current depth of the shadow call stack.
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /// Number of calls ignored because the shadow stack was {@link #MAX_DEPTH} deep.
+    public long getOverflows() {
+        return this.overflows;
+    }
+
+    //region * Symbols *
+    /// Names subroutines after the labels of a symbol file, either a VICE label file as written by ld65 `-Ln` (`al C000 .main`) or lines of `name = $C000`.
+    public void loadSymbols(Path path) throws IOException {
+        for(String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String[] parts = line.strip().split("\\s+");
+            if(parts.length >= 3 && parts[0].equals("al")) {
+                String address = parts[1].substring(parts[1].indexOf(':') + 1);
+                String name = parts[2].startsWith(".") ? parts[2].substring(1) : parts[2];
+                this.symbols.putIfAbsent(Integer.parseInt(address, 16) & 0xFFFF, name);
+            }else if(parts.length >= 3 && parts[1].equals("=") && parts[2].startsWith("$")) {
+                this.symbols.putIfAbsent(Integer.parseInt(parts[2].substring(1), 16) & 0xFFFF, parts[0]);
+            }
+        }
+    }
+
+    public void setSymbol(int address, String name) {
+        this.symbols.put(address & 0xFFFF, name);
+    }
+
+    public String getName(int address) {
+        if(address == NO_ADDRESS) return "[root]";
+        String name = this.symbols.get(address);
+        return name != null ? name : String.format("$%04X", address);
+    }
+    //endregion
+
+    //region * Reports *
+    /// Lists calls, inclusive and exclusive cycles of every subroutine, sorted by inclusive cycles.
+    public String getReport() {
+        Map<Integer, long[]> subroutines = new HashMap<>();
+        long total = 0;
+        Set<Integer> seen = new HashSet<>();
+
+        for(int node = 0;node<this.nodes;node++) {
+            long cycles = this.nodeCycles[node];
+            total += cycles;
+
+            long[] own = subroutines.computeIfAbsent(this.nodeAddress[node], k -> new long[3]);
+            own[0] += this.nodeCalls[node];
+            own[2] += cycles;
+
+            // Every subroutine on the path to node includes its cycles once, however often it recursed
+            seen.clear();
+            for(int ancestor = node;ancestor != -1;ancestor = this.nodeParent[ancestor]) {
+                if(seen.add(this.nodeAddress[ancestor])) subroutines.computeIfAbsent(this.nodeAddress[ancestor], k -> new long[3])[1] += cycles;
+            }
+        }
+
+        List<Map.Entry<Integer, long[]>> sorted = new ArrayList<>(subroutines.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-24s %12s %14s %8s %14s %8s%n", "Subroutine", "calls", "inclusive", "incl%", "exclusive", "excl%"));
+        for(Map.Entry<Integer, long[]> entry : sorted) {
+            long[] counts = entry.getValue();
+            builder.append(String.format("%-24s %12d %14d %7.2f%% %14d %7.2f%%%n", getName(entry.getKey()), counts[0], counts[1], percent(counts[1], total), counts[2], percent(counts[2], total)));
+        }
+        if(this.overflows != 0) builder.append(String.format("%d calls deeper than %d frames were not tracked%n", this.overflows, MAX_DEPTH));
+        return builder.toString();
+    }
+
+    /// Writes one line of `root;caller;callee cycles` per calling context, the collapsed stack format read by flamegraph.pl and speedscope.
+    public void writeCollapsedStacks(Writer writer) throws IOException {
+        StringBuilder stack = new StringBuilder();
+        List<String> names = new ArrayList<>();
+        for(int node = 0;node<this.nodes;node++) {
+            if(this.nodeCycles[node] == 0) continue;
+
+            names.clear();
+            for(int ancestor = node;ancestor != -1;ancestor = this.nodeParent[ancestor]) names.add(getName(this.nodeAddress[ancestor]));
+
+            stack.setLength(0);
+            for(int i = names.size() - 1;i>=0;i--) {
+                stack.append(names.get(i).replace(';', '_').replace(' ', '_'));
+                if(i != 0) stack.append(';');
+            }
+            writer.write(stack.toString());
+            writer.write(' ');
+            writer.write(Long.toString(this.nodeCycles[node]));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static double percent(long value, long total) {
+        return total == 0 ? 0 : value * 100.0 / total;
+    }
+    //endregion
+}
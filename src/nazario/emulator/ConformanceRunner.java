@@ -0,0 +1,198 @@
+package nazario.emulator;
+
+import nazario.emulator.util.ConformanceResult;
+import nazario.emulator.util.ConformanceTest;
+import nazario.emulator.util.StopReason;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/// Runs the Klaus Dormann functional test images of a resources directory, checks that they pass and measures how fast they run.
+///
+/// A test ends when it stops or when it is caught in a trap, an instruction that jumps or branches to itself. The instruction the run is at is checked for a trap every {@link #CHECK_CYCLES} cycles, so a trapped test spins for at most that long.
+/// The results are compared against a baseline of earlier results: a test that passed and now fails, or that fails earlier than it used to, is a correctness regression, a test that runs more than the threshold slower is a throughput regression.
+/// Throughput baselines are only meaningful on the machine that recorded them.
+public class ConformanceRunner {
+    public static final long DEFAULT_MAX_CYCLES = 2_000_000_000L;
+    public static final int CHECK_CYCLES = 1 << 20;
+
+    public static final int OK = 0;
+    public static final int CORRECTNESS_REGRESSION = 1;
+    public static final int THROUGHPUT_REGRESSION = 2;
+
+    protected final Path directory;
+    protected final long maxCycles;
+    protected final int repeat;
+    protected final boolean blockCompiler;
+    protected final boolean superInstructions;
+
+    public ConformanceRunner(Path directory, long maxCycles, int repeat, boolean blockCompiler, boolean superInstructions) {
+        this.directory = directory;
+        this.maxCycles = maxCycles;
+        this.repeat = repeat;
+        this.blockCompiler = blockCompiler;
+        this.superInstructions = superInstructions;
+    }
+
+    /// Runs test repeat times and returns the result of the fastest run, or a SKIPPED result if its image is not in the directory.
+    public ConformanceResult run(ConformanceTest test) throws IOException {
+        Path image = this.directory.resolve(test.fileName());
+        if(!Files.isRegularFile(image)) return new ConformanceResult(test, "SKIPPED", "no " + image, 0, 0, 0);
+
+        byte[] bytes = Files.readAllBytes(image);
+        ConformanceResult best = null;
+        for(int i = 0;i<this.repeat;i++) {
+            ConformanceResult result = runOnce(test, bytes);
+            if(best == null || result.nanos() < best.nanos()) best = result;
+        }
+        return best;
+    }
+
+    private ConformanceResult runOnce(ConformanceTest test, byte[] image) {
+        Memory memory = new Memory();
+        memory.writeBlock(test.loadAddress(), image, 0, Math.min(image.length, 0x10000 - test.loadAddress()));
+
+        Cpu cpu = new Cpu(memory, new Registrars(), false);
+        cpu.setBlockCompilerEnabled(this.blockCompiler);
+        cpu.setSuperInstructionsEnabled(this.superInstructions);
+        cpu.setProgramCounter(test.startAddress());
+
+        long start = System.nanoTime();
+        int reason;
+        boolean trapped = false;
+        while(true) {
+            reason = cpu.run(Math.min(cpu.getCycles() + CHECK_CYCLES, this.maxCycles), Cpu.NO_DEADLINE);
+            if(reason != StopReason.CYCLE_BUDGET || cpu.getCycles() >= this.maxCycles) break;
+
+            // Fusions and compiled loops also come back to where they started, so the instruction itself has to jump to its own address
+            int programCounter = cpu.getProgramCounter();
+            if(!jumpsToItself(memory, programCounter)) continue;
+            reason = cpu.step();
+            if(reason != StopReason.NONE) break;
+            if(cpu.getProgramCounter() == programCounter) {
+                trapped = true;
+                break;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        int programCounter = cpu.getProgramCounter();
+        String status;
+        String detail;
+        if(trapped) {
+            status = programCounter == test.successAddress() ? "PASS" : "FAIL";
+            detail = String.format(programCounter == test.successAddress() ? "success trap at $%04X" : "trap at $%04X", programCounter);
+        }else if(test.errorAddress() != -1 && test.successAddress() == -1 && reason != StopReason.CYCLE_BUDGET) {
+            int error = Byte.toUnsignedInt(memory.getValue(test.errorAddress()));
+            status = error == 0 ? "PASS" : "FAIL";
+            detail = String.format("%s at $%04X, error $%02X", StopReason.getName(reason), programCounter, error);
+        }else {
+            status = "FAIL";
+            detail = String.format("%s at $%04X", StopReason.getName(reason), programCounter);
+        }
+        return new ConformanceResult(test, status, detail, cpu.getInstructionCount(), cpu.getCycles(), nanos);
+    }
+
+    /// Whether the instruction at address is a JMP or a branch to address, a branch only traps while it is taken.
+    private static boolean jumpsToItself(Memory memory, int address) {
+        int opcode = Byte.toUnsignedInt(memory.getValue(address));
+        int first = Byte.toUnsignedInt(memory.getValue((address + 1) & 0xFFFF));
+        if(opcode == 0x4C) return (first | Byte.toUnsignedInt(memory.getValue((address + 2) & 0xFFFF)) << 8) == address;
+        return (opcode & 0x1F) == 0x10 && first == 0xFE;
+    }
+
+    //region * Baseline *
+    /// Compares results against baseline, prints every regression to the standard error and returns {@link #OK}, {@link #CORRECTNESS_REGRESSION} or {@link #THROUGHPUT_REGRESSION}.
+    ///
+    /// A test without a baseline has to pass, threshold is the allowed slowdown in percent.
+    public static int compare(List<ConformanceResult> results, Properties baseline, double threshold) {
+        int outcome = OK;
+        for(ConformanceResult result : results) {
+            if(result.status().equals("SKIPPED")) continue;
+            String name = result.test().name();
+
+            String status = baseline.getProperty(name + ".status");
+            long instructions = Long.parseLong(baseline.getProperty(name + ".instructions", "0"));
+            if(!result.passed() && (status == null || status.equals("PASS") || result.instructions() < instructions)) {
+                System.err.printf("%s: correctness regression, %s (baseline %s after %d instructions)%n", name, result.detail(), status == null ? "none" : status, instructions);
+                outcome = CORRECTNESS_REGRESSION;
+            }
+
+            String speed = baseline.getProperty(name + ".instructionsPerSecond");
+            if(speed != null && result.instructionsPerSecond() < Double.parseDouble(speed) * (1 - threshold / 100)) {
+                System.err.printf("%s: throughput regression, %.0f instructions/s against %s in the baseline%n", name, result.instructionsPerSecond(), speed);
+                if(outcome == OK) outcome = THROUGHPUT_REGRESSION;
+            }
+        }
+        return outcome;
+    }
+
+    public static void writeBaseline(List<ConformanceResult> results, Properties baseline) {
+        for(ConformanceResult result : results) {
+            if(result.status().equals("SKIPPED")) continue;
+            String name = result.test().name();
+            baseline.setProperty(name + ".status", result.status());
+            baseline.setProperty(name + ".instructions", Long.toString(result.instructions()));
+            baseline.setProperty(name + ".instructionsPerSecond", String.format(Locale.ROOT, "%.0f", result.instructionsPerSecond()));
+        }
+    }
+    //endregion
+
+    /// Usage: `[resources directory] [--baseline file] [--update-baseline] [--threshold percent] [--repeat n] [--max-cycles n] [--block-compiler] [--super-instructions]`
+    ///
+    /// Runs {@link ConformanceTest#FUNCTIONAL} and {@link ConformanceTest#DECIMAL} from the directory, `resources` by default, and exits with the outcome of {@link #compare}.
+    /// The baseline defaults to `conformance-baseline.properties` in the directory, `--update-baseline` replaces it with the current results instead of comparing against it.
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean updateBaseline = arguments.remove("--update-baseline");
+        boolean blockCompiler = arguments.remove("--block-compiler");
+        boolean superInstructions = arguments.remove("--super-instructions");
+        String baselinePath = option(arguments, "--baseline", null);
+        double threshold = Double.parseDouble(option(arguments, "--threshold", "10"));
+        int repeat = Integer.parseInt(option(arguments, "--repeat", "3"));
+        long maxCycles = Long.parseLong(option(arguments, "--max-cycles", Long.toString(DEFAULT_MAX_CYCLES)));
+
+        Path directory = Path.of(arguments.isEmpty() ? "resources" : arguments.get(0));
+        Path baselineFile = baselinePath != null ? Path.of(baselinePath) : directory.resolve("conformance-baseline.properties");
+
+        ConformanceRunner runner = new ConformanceRunner(directory, maxCycles, repeat, blockCompiler, superInstructions);
+        List<ConformanceResult> results = new ArrayList<>();
+        System.out.printf("%-12s %-8s %14s %14s %16s %10s  %s%n", "Test", "status", "instructions", "cycles", "instructions/s", "MHz", "detail");
+        for(ConformanceTest test : List.of(ConformanceTest.FUNCTIONAL, ConformanceTest.DECIMAL)) {
+            ConformanceResult result = runner.run(test);
+            results.add(result);
+            System.out.printf("%-12s %-8s %14d %14d %16.0f %10.2f  %s%n", test.name(), result.status(), result.instructions(), result.cycles(), result.instructionsPerSecond(), result.cyclesPerSecond() / 1e6, result.detail());
+        }
+
+        Properties baseline = new Properties();
+        if(Files.exists(baselineFile)) {
+            try(Reader reader = Files.newBufferedReader(baselineFile)) {
+                baseline.load(reader);
+            }
+        }
+
+        if(updateBaseline) {
+            writeBaseline(results, baseline);
+            try(Writer writer = Files.newBufferedWriter(baselineFile)) {
+                baseline.store(writer, "Conformance baseline, see ConformanceRunner");
+            }
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        System.exit(compare(results, baseline, threshold));
+    }
+
+    /// Removes the option and its value from arguments and returns the value, or fallback if the option is missing.
+    private static String option(List<String> arguments, String name, String fallback) {
+        int index = arguments.indexOf(name);
+        if(index == -1) return fallback;
+
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
+}
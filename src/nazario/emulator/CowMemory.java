@@ -0,0 +1,129 @@
+package nazario.emulator;
+
+import java.util.Arrays;
+
+/// {@link Memory} that stores every page in its own array so that pages can be shared copy-on-write between machines, see {@link Snapshot}.
+///
+/// A shared page is only copied when it is written, so taking a snapshot or forking a machine costs the same no matter how much memory is in use.
+public class CowMemory extends Memory {
+    protected final byte[][] pages = new byte[0x100][];
+    /// Pages that are not shared with a snapshot or another machine and can be written in place.
+    protected final boolean[] owned = new boolean[0x100];
+
+    public CowMemory() {
+        super(new byte[0]);
+        for(int page = 0;page<0x100;page++) {
+            this.pages[page] = new byte[0x100];
+            this.owned[page] = true;
+        }
+    }
+
+    /// Starts out sharing every page with pages, e.g. those of a {@link Snapshot}, without allocating any of its own.
+    CowMemory(byte[][] pages) {
+        super(new byte[0]);
+        System.arraycopy(pages, 0, this.pages, 0, 0x100);
+    }
+
+    /// Shares every page with the returned array, both sides copy a page before they write to it.
+    protected byte[][] sharePages() {
+        Arrays.fill(this.owned, false);
+        return this.pages.clone();
+    }
+
+    /// Replaces every page with the shared pages and drops the cached instructions decoded from the old ones.
+    protected void setSharedPages(byte[][] pages) {
+        System.arraycopy(pages, 0, this.pages, 0, 0x100);
+        Arrays.fill(this.owned, false);
+        Arrays.fill(this.dirtyPages, -1L);
+        if(this.decodeCache != null) this.decodeCache.invalidateAll();
+    }
+
+    /// Returns the page to write to, copying it first if it is shared.
+    private byte[] writablePage(int page) {
+        if(this.owned[page]) return this.pages[page];
+
+        this.owned[page] = true;
+        return this.pages[page] = this.pages[page].clone();
+    }
+
+    /// Number of pages that are not shared, i.e. were copied or written since the last snapshot.
+    public int getOwnedPageCount() {
+        int count = 0;
+        for(boolean owned : this.owned) if(owned) count++;
+        return count;
+    }
+
+    @Override
+    public void pushToStack(byte value) {
+        writeValue(this.stackPointer++, value);
+    }
+
+    @Override
+    public byte pullFromStack() {
+        return getValue(this.stackPointer--);
+    }
+
+    @Override
+    public void writeValue(int index, byte value) {
+        index &= 0xFFFF;
+        if(this.mapped) {
+            int page = index >>> 8;
+            if(this.pageTypes[page] == DEVICE) {
+                this.devices[page].write(index, value);
+                return;
+            }
+            if(this.pageTypes[page] == ROM) return;
+
+            int base = this.pageBases[page];
+            writablePage(base >>> 8)[index & 0xFF] = value;
+            markDirty(base);
+            invalidateMapped(index, base);
+            return;
+        }
+
+        writablePage(index >>> 8)[index & 0xFF] = value;
+        markDirty(index);
+        if(this.decodeCache != null) this.decodeCache.invalidate(index);
+    }
+
+    @Override
+    public byte getValue(int index) {
+        index &= 0xFFFF;
+        if(this.mapped) {
+            int page = index >>> 8;
+            if(this.pageTypes[page] == DEVICE) return this.devices[page].read(index);
+            return this.pages[this.pageBases[page] >>> 8][index & 0xFF];
+        }
+
+        return this.pages[index >>> 8][index & 0xFF];
+    }
+
+    /// The pages are separate arrays shared with snapshots, see {@link #copyMemory()}.
+    @Override
+    public byte[] getMemory() {
+        throw new UnsupportedOperationException("Copy-on-write memory has no backing array");
+    }
+
+    @Override
+    public byte[] copyMemory() {
+        byte[] bytes = new byte[0x10000];
+        for(int page = 0;page<0x100;page++) System.arraycopy(this.pages[page], 0, bytes, page << 8, 0x100);
+        return bytes;
+    }
+
+    @Override
+    public void copyPage(int page, byte[] into) {
+        System.arraycopy(this.pages[page], 0, into, 0, 0x100);
+    }
+
+    @Override
+    protected void copyIn(int index, byte[] data, int offset, int length) {
+        while(length > 0) {
+            int count = Math.min(length, 0x100 - (index & 0xFF));
+            System.arraycopy(data, offset, writablePage(index >>> 8), index & 0xFF, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
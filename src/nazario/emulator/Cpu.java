@@ -0,0 +1,1317 @@
+package nazario.emulator;
+
+import nazario.emulator.util.AddressingMode;
+import nazario.emulator.util.CompiledBlock;
+import nazario.emulator.util.Instruction;
+import nazario.emulator.util.InstructionInfo;
+import nazario.emulator.util.StopReason;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Switch dispatched interpreter for the instructions in {@link InstructionSet} and {@link IllegalInstructionSet}.
+///
+/// Every opcode is decoded by a single dense `switch` on the opcode byte, so a step never looks up a {@link nazario.emulator.util.Pair Pair}, never calls an {@link nazario.emulator.util.InstructionsFunction InstructionsFunction} and never allocates.
+/// The results are the same as running the handlers of {@link InstructionSet} (and {@link IllegalInstructionSet} if enabled) one after another.
+///
+/// Instructions are predecoded once into a {@link DecodeCache} and only decoded again after a write to one of their bytes.
+/// If {@link SuperInstructions} are enabled, common opcode pairs and triples run as one fused handler.
+/// If the {@link BlockCompiler} is enabled, hot blocks are compiled into JVM bytecode and run in place of the switch.
+///
+/// All execution state lives in the instance, its {@link Memory} and its {@link PackedRegistrars}, so separate cpus can run on separate threads, see {@link MachineRunner}.
+public class Cpu {
+    /// Used by the shift and rotate helpers in place of an address when they operate on the accumulator, see {@link AddressingMode#ACCUMULATOR}.
+    private static final int ACCUMULATOR = -1;
+    /// Cycles between two checks of the deadline of {@link #run(long, long)}.
+    private static final int DEADLINE_INTERVAL = 4096;
+
+    /// Passed to {@link #run(long, long)} to run without a deadline.
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    protected final Memory memory;
+    protected final PackedRegistrars registrars;
+    protected final Registrars syncedRegistrars;
+    protected final boolean illegalOpcodes;
+    protected DecodeCache decodeCache;
+    protected BlockCompiler blockCompiler;
+    protected SuperInstructions superInstructions;
+    protected ExecutionTracer tracer;
+    protected OpcodeProfiler opcodeProfiler;
+    protected CallStackProfiler callStackProfiler;
+
+    protected int programCounter;
+    protected long instructionCount;
+    protected long cycles;
+    /// Cycles at which compiled blocks stop looping, the next budget or deadline check of a run.
+    protected long cycleLimit = Long.MAX_VALUE;
+
+    protected final long[] breakpoints = new long[0x10000 / 64];
+    protected int breakpointCount;
+
+    private static final AtomicInteger MACHINE_IDS = new AtomicInteger();
+    protected final int machineId = MACHINE_IDS.incrementAndGet();
+    // Written once per run, read by monitoring threads
+    protected volatile boolean running;
+    protected volatile int stopReason = StopReason.NONE;
+
+    public Cpu(Memory memory, Registrars registrars, boolean illegalOpcodes) {
+        this.memory = memory;
+        this.registrars = new PackedRegistrars();
+        this.registrars.copyFrom(registrars);
+        this.syncedRegistrars = registrars;
+        this.illegalOpcodes = illegalOpcodes;
+        setDecodeCacheEnabled(true);
+    }
+
+    /// Number of this machine, unique within the JVM, used to tell machines apart in {@link EmulatorEvents} and {@link MachineMonitor}.
+    public int getMachineId() {
+        return this.machineId;
+    }
+
+    /// True while {@link #run(long, long)} executes, safe to read from any thread.
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /// The {@link StopReason} the last run returned, safe to read from any thread.
+    public int getStopReason() {
+        return this.stopReason;
+    }
+
+    public Memory getMemory() {
+        return this.memory;
+    }
+
+    /// Copies the current registers into the {@link Registrars} this cpu was created with and returns it.
+    ///
+    /// The cpu itself works on a {@link PackedRegistrars}, so changes made to the returned object are not seen by the cpu, use {@link #setRegistrars(Registrars)} for that.
+    public Registrars getRegistrars() {
+        this.registrars.copyTo(this.syncedRegistrars);
+        return this.syncedRegistrars;
+    }
+
+    public void setRegistrars(Registrars registrars) {
+        this.registrars.copyFrom(registrars);
+    }
+
+    public PackedRegistrars getPackedRegistrars() {
+        return this.registrars;
+    }
+
+    /// Enables or disables the {@link DecodeCache}, which is enabled by default. The cache is attached to the {@link Memory} of this cpu so that writes can invalidate it.
+    ///
+    /// Compiled blocks depend on the cache, so changing it drops them and disabling it also disables the {@link BlockCompiler}, which {@link #setBlockCompilerEnabled(boolean)} has to enable again.
+    public void setDecodeCacheEnabled(boolean enabled) {
+        this.decodeCache = enabled ? new DecodeCache() : null;
+        this.memory.setDecodeCache(this.decodeCache);
+        if(this.blockCompiler != null) this.blockCompiler = enabled ? new BlockCompiler(this) : null;
+    }
+
+    /// Enables or disables the {@link BlockCompiler}, which is disabled by default. Enabling it also enables the {@link DecodeCache}.
+    public void setBlockCompilerEnabled(boolean enabled) {
+        if(enabled && this.decodeCache == null) setDecodeCacheEnabled(true);
+        this.blockCompiler = enabled ? new BlockCompiler(this) : null;
+    }
+
+    public BlockCompiler getBlockCompiler() {
+        return this.blockCompiler;
+    }
+
+    /// Enables or disables fusing the opcode sequences of {@link SuperInstructions}, which is disabled by default. Disabling it discards the fusion counts.
+    public void setSuperInstructionsEnabled(boolean enabled) {
+        this.superInstructions = enabled ? new SuperInstructions() : null;
+    }
+
+    /// Returns the counts of the fusions that fired, or null if fusing is disabled.
+    public SuperInstructions getSuperInstructions() {
+        return this.superInstructions;
+    }
+
+    /// Records every instruction into tracer, or stops tracing if it is null. Compiled blocks and fusions are not used while tracing, so that every instruction is recorded.
+    public void setTracer(ExecutionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public ExecutionTracer getTracer() {
+        return this.tracer;
+    }
+
+    /// Counts every instruction executed by {@link #run(long, long)} in profiler, or stops profiling if it is null.
+    ///
+    /// A profiled run uses its own loop that executes one instruction at a time without compiled blocks or fusions, an unprofiled run does not check for the profiler at all.
+    public void setOpcodeProfiler(OpcodeProfiler profiler) {
+        this.opcodeProfiler = profiler;
+    }
+
+    public OpcodeProfiler getOpcodeProfiler() {
+        return this.opcodeProfiler;
+    }
+
+    /// Attributes the cycles of every instruction executed by {@link #run(long, long)} to the subroutine running it, or stops profiling if profiler is null. Runs the same loop as {@link #setOpcodeProfiler(OpcodeProfiler)}.
+    public void setCallStackProfiler(CallStackProfiler profiler) {
+        this.callStackProfiler = profiler;
+    }
+
+    public CallStackProfiler getCallStackProfiler() {
+        return this.callStackProfiler;
+    }
+
+    /// Takes a copy-on-write {@link Snapshot} of this cpu, which has to run on a {@link CowMemory}.
+    public Snapshot snapshot() {
+        return Snapshot.of(this);
+    }
+
+    public int getProgramCounter() {
+        return this.programCounter;
+    }
+
+    public void setProgramCounter(int programCounter) {
+        this.programCounter = programCounter & 0xFFFF;
+    }
+
+    /// Loads the program counter from the reset vector at $FFFC, set by {@link ProgramLoader}.
+    public void reset() {
+        this.programCounter = (this.memory.getValue(0xFFFC) & 0xFF) | (this.memory.getValue(0xFFFD) & 0xFF) << 8;
+    }
+
+    /// Number of instructions executed by this cpu so far, faulting instructions are not counted.
+    public long getInstructionCount() {
+        return this.instructionCount;
+    }
+
+    /// Number of clock cycles executed by this cpu so far.
+    ///
+    /// Every instruction adds the cycles of its {@link InstructionInfo}, read instructions add one more if an ABSOLUTE_X, ABSOLUTE_Y or INDIRECT_Y address crosses a page and a taken branch adds one, or two if it lands on another page.
+    public long getCycles() {
+        return this.cycles;
+    }
+
+    /// Executes instructions until one of them stops the run, see {@link StopReason}.
+    ///
+    /// Returns the {@link StopReason}, the program counter is left on the instruction that stopped the run.
+    public int run() {
+        return run(Long.MAX_VALUE, NO_DEADLINE);
+    }
+
+    /// Same as {@link #run()}, but also stops with {@link StopReason#CYCLE_BUDGET} once {@link #getCycles()} reaches maxCycles and with {@link StopReason#TIME_BUDGET} once {@link System#nanoTime()} passes deadline.
+    ///
+    /// The cycle budget is checked after every instruction, fusion of {@link SuperInstructions} or pass of a compiled block, so a run stops at most {@link BlockCompiler#MAX_BLOCK_LENGTH} instructions after reaching maxCycles.
+    /// The deadline is only checked every 4096 cycles, so a run can overshoot it by that many cycles and one more block.
+    /// A breakpoint on the instruction a run starts at is ignored, so a run stopped on a breakpoint can be resumed.
+    public int run(long maxCycles, long deadline) {
+        EmulatorEvents.Run event = new EmulatorEvents.Run();
+        event.begin();
+        int startAddress = this.programCounter;
+        long instructions = this.instructionCount;
+        long cycles = this.cycles;
+
+        EmulatorEvents.started(this);
+        this.running = true;
+        int reason;
+        try {
+            if(this.opcodeProfiler != null || this.callStackProfiler != null) reason = runInstrumented(maxCycles, deadline);
+            else reason = runInterpreted(maxCycles, deadline);
+        } finally {
+            this.cycleLimit = Long.MAX_VALUE;
+            this.running = false;
+            EmulatorEvents.stopped(this);
+        }
+        this.stopReason = reason;
+
+        if(event.shouldCommit()) {
+            event.machine = this.machineId;
+            event.startAddress = startAddress;
+            event.stopAddress = this.programCounter;
+            event.stopReason = StopReason.getName(reason);
+            event.instructions = this.instructionCount - instructions;
+            event.cycles = this.cycles - cycles;
+            event.commit();
+        }
+        return reason;
+    }
+
+    /// The loop of {@link #run(long, long)}.
+    private int runInterpreted(long maxCycles, long deadline) {
+        int resumeAddress = this.programCounter;
+        this.cycleLimit = Math.min(maxCycles, this.cycles + DEADLINE_INTERVAL);
+        while(true) {
+            if(this.cycles >= this.cycleLimit) {
+                if(this.cycles >= maxCycles) return StopReason.CYCLE_BUDGET;
+                if(deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) return StopReason.TIME_BUDGET;
+                this.cycleLimit = Math.min(maxCycles, this.cycles + DEADLINE_INTERVAL);
+            }
+            if(this.breakpointCount != 0 && isBreakpoint(this.programCounter)) {
+                if(this.programCounter != resumeAddress) return StopReason.BREAKPOINT;
+                resumeAddress = -1;
+            }
+
+            int reason = step();
+            if(reason != StopReason.NONE) return reason;
+        }
+    }
+
+    /// The loop of {@link #run(long, long)} while a profiler is attached, kept separate so that the uninstrumented loop stays as small as it is.
+    private int runInstrumented(long maxCycles, long deadline) {
+        int resumeAddress = this.programCounter;
+        this.cycleLimit = Math.min(maxCycles, this.cycles + DEADLINE_INTERVAL);
+        while(true) {
+            if(this.cycles >= this.cycleLimit) {
+                if(this.cycles >= maxCycles) return StopReason.CYCLE_BUDGET;
+                if(deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) return StopReason.TIME_BUDGET;
+                this.cycleLimit = Math.min(maxCycles, this.cycles + DEADLINE_INTERVAL);
+            }
+            if(this.breakpointCount != 0 && isBreakpoint(this.programCounter)) {
+                if(this.programCounter != resumeAddress) return StopReason.BREAKPOINT;
+                resumeAddress = -1;
+            }
+
+            int reason = stepInstrumented();
+            if(reason != StopReason.NONE) return reason;
+        }
+    }
+
+    /// Same as {@link #step()} for a single instruction, but also reports it to the attached profilers.
+    private int stepInstrumented() {
+        int programCounter = this.programCounter;
+        int entry = decode(programCounter);
+        int opcode = DecodeCache.opcode(entry);
+        ExecutionTracer tracer = this.tracer;
+        if(tracer != null) {
+            PackedRegistrars registrars = this.registrars;
+            tracer.record(programCounter, opcode, registrars.accumulator, registrars.registerX, registrars.registerY, registrars.getProcessorStatus(), this.memory.stackPointer, this.cycles);
+        }
+        if(opcode == 0x00) return StopReason.BRK;
+
+        long cycles = this.cycles;
+        int next = execute(opcode, programCounter, DecodeCache.operand(entry));
+        if(next < 0) return -next;
+
+        this.programCounter = next & 0xFFFF;
+        this.instructionCount++;
+        this.cycles += CYCLES[opcode];
+
+        OpcodeProfiler opcodeProfiler = this.opcodeProfiler;
+        if(opcodeProfiler != null) opcodeProfiler.count(opcode, this.cycles - cycles);
+        CallStackProfiler callStackProfiler = this.callStackProfiler;
+        if(callStackProfiler != null) callStackProfiler.instruction(opcode, this.programCounter, this.memory.stackPointer, this.cycles - cycles);
+        return StopReason.NONE;
+    }
+
+    /// Stops {@link #run(long, long)} before the instruction at address is executed. Compiled blocks and fusions are not used while any breakpoint is set, so that every instruction is checked.
+    public void setBreakpoint(int address, boolean enabled) {
+        address &= 0xFFFF;
+        if(isBreakpoint(address) == enabled) return;
+
+        this.breakpoints[address >>> 6] ^= 1L << address;
+        this.breakpointCount += enabled ? 1 : -1;
+    }
+
+    public boolean isBreakpoint(int address) {
+        return (this.breakpoints[(address & 0xFFFF) >>> 6] & (1L << address)) != 0;
+    }
+
+    public void clearBreakpoints() {
+        Arrays.fill(this.breakpoints, 0);
+        this.breakpointCount = 0;
+    }
+
+    /// Executes the instruction at the program counter, or the whole block starting there if the {@link BlockCompiler} has compiled one.
+    ///
+    /// Returns {@link StopReason#NONE}, or the reason the instruction could not be executed without executing anything.
+    public int step() {
+        int programCounter = this.programCounter;
+        ExecutionTracer tracer = this.tracer;
+        boolean singleStep = this.breakpointCount != 0 || tracer != null;
+
+        BlockCompiler blockCompiler = this.blockCompiler;
+        if(blockCompiler != null && !singleStep) {
+            CompiledBlock block = blockCompiler.getBlock(programCounter);
+            if(block != null) {
+                long instructions = this.instructionCount;
+                int next = block.execute(this, this.cycleLimit);
+                // A block that left before its first instruction, e.g. on a stack operation that may fault, leaves it to the interpreter
+                if(next != programCounter || this.instructionCount != instructions) {
+                    this.programCounter = next;
+                    return StopReason.NONE;
+                }
+            }
+        }
+
+        int entry = decode(programCounter);
+        int opcode = DecodeCache.opcode(entry);
+        if(tracer != null) {
+            PackedRegistrars registrars = this.registrars;
+            tracer.record(programCounter, opcode, registrars.accumulator, registrars.registerX, registrars.registerY, registrars.getProcessorStatus(), this.memory.stackPointer, this.cycles);
+        }
+        if(opcode == 0x00) return StopReason.BRK;
+
+        if(this.superInstructions != null && !singleStep && SuperInstructions.startsFusion(opcode)) {
+            int next = fuse(programCounter, entry);
+            if(next >= 0) {
+                this.programCounter = next;
+                return StopReason.NONE;
+            }
+        }
+
+        int next = execute(opcode, programCounter, DecodeCache.operand(entry));
+        if(next < 0) return -next;
+
+        this.programCounter = next & 0xFFFF;
+        this.instructionCount++;
+        this.cycles += CYCLES[opcode];
+        return StopReason.NONE;
+    }
+
+    /// Executes the fusion of {@link SuperInstructions} that starts at pc and returns the address of the next instruction, or -1 without executing anything if the following instructions do not form one.
+    private int fuse(int pc, int entry) {
+        int second = (pc + DecodeCache.length(entry)) & 0xFFFF;
+        int secondEntry = decode(second);
+        int fusion = SuperInstructions.fusion(DecodeCache.opcode(entry), DecodeCache.opcode(secondEntry));
+        if(fusion == SuperInstructions.NONE) return -1;
+
+        int operand = DecodeCache.operand(entry);
+        int secondOperand = DecodeCache.operand(secondEntry);
+
+        int third = (second + DecodeCache.length(secondEntry)) & 0xFFFF;
+        int thirdOperand = 0;
+        if(SuperInstructions.third(fusion) >= 0) {
+            int thirdEntry = decode(third);
+            if(DecodeCache.opcode(thirdEntry) != SuperInstructions.third(fusion)) return -1;
+            thirdOperand = DecodeCache.operand(thirdEntry);
+        }
+
+        int next = switch(fusion) {
+            case SuperInstructions.DEX_BNE -> {
+                dex();
+                yield branch(second, secondOperand, this.registrars.registerX != 0);
+            }
+            case SuperInstructions.DEY_BNE -> {
+                dey();
+                yield branch(second, secondOperand, this.registrars.registerY != 0);
+            }
+            case SuperInstructions.INX_BNE -> {
+                inx();
+                yield branch(second, secondOperand, this.registrars.registerX != 0);
+            }
+            case SuperInstructions.INY_BNE -> {
+                iny();
+                yield branch(second, secondOperand, this.registrars.registerY != 0);
+            }
+            case SuperInstructions.DEX_BPL -> {
+                dex();
+                yield branch(second, secondOperand, this.registrars.registerX >= 0);
+            }
+            case SuperInstructions.DEY_BPL -> {
+                dey();
+                yield branch(second, secondOperand, this.registrars.registerY >= 0);
+            }
+
+            case SuperInstructions.LDA_ABSOLUTE_X_STA_ABSOLUTE_Y -> {
+                lda(read(absoluteXRead(operand)));
+                sta(absoluteY(secondOperand));
+                yield third;
+            }
+            case SuperInstructions.LDA_ABSOLUTE_Y_STA_ABSOLUTE_Y -> {
+                lda(read(absoluteYRead(operand)));
+                sta(absoluteY(secondOperand));
+                yield third;
+            }
+            case SuperInstructions.LDA_ABSOLUTE_X_STA_ABSOLUTE_X -> {
+                lda(read(absoluteXRead(operand)));
+                sta(absoluteX(secondOperand));
+                yield third;
+            }
+            case SuperInstructions.LDA_INDIRECT_Y_STA_INDIRECT_Y -> {
+                lda(read(indirectYRead(operand)));
+                sta(indirectY(secondOperand));
+                yield third;
+            }
+
+            case SuperInstructions.CMP_IMMEDIATE_BEQ -> {
+                cmp((byte) operand);
+                yield branch(second, secondOperand, this.registrars.accumulator == (byte) operand);
+            }
+            case SuperInstructions.CMP_IMMEDIATE_BNE -> {
+                cmp((byte) operand);
+                yield branch(second, secondOperand, this.registrars.accumulator != (byte) operand);
+            }
+            case SuperInstructions.CPX_IMMEDIATE_BEQ -> {
+                cpx((byte) operand);
+                yield branch(second, secondOperand, this.registrars.registerX == (byte) operand);
+            }
+            case SuperInstructions.CPX_IMMEDIATE_BNE -> {
+                cpx((byte) operand);
+                yield branch(second, secondOperand, this.registrars.registerX != (byte) operand);
+            }
+            case SuperInstructions.CPY_IMMEDIATE_BEQ -> {
+                cpy((byte) operand);
+                yield branch(second, secondOperand, this.registrars.registerY == (byte) operand);
+            }
+            case SuperInstructions.CPY_IMMEDIATE_BNE -> {
+                cpy((byte) operand);
+                yield branch(second, secondOperand, this.registrars.registerY != (byte) operand);
+            }
+
+            case SuperInstructions.INX_CPX_IMMEDIATE_BNE -> {
+                inx();
+                cpx((byte) secondOperand);
+                yield branch(third, thirdOperand, this.registrars.registerX != (byte) secondOperand);
+            }
+            case SuperInstructions.INY_CPY_IMMEDIATE_BNE -> {
+                iny();
+                cpy((byte) secondOperand);
+                yield branch(third, thirdOperand, this.registrars.registerY != (byte) secondOperand);
+            }
+
+            default -> throw new IllegalStateException("Unknown fusion: " + fusion);
+        };
+
+        this.superInstructions.counts[fusion]++;
+        this.instructionCount += FUSION_LENGTHS[fusion];
+        this.cycles += FUSION_CYCLES[fusion];
+        return next;
+    }
+
+    /// Returns the {@link DecodeCache} entry for the instruction at pc, decoding it from memory if it is not cached.
+    int decode(int pc) {
+        DecodeCache decodeCache = this.decodeCache;
+        if(decodeCache != null) {
+            int entry = decodeCache.get(pc);
+            if(entry != 0) return entry;
+        }
+
+        int opcode = Byte.toUnsignedInt(this.memory.fetchValue(pc));
+        int length = LENGTHS[opcode];
+        int operand = fetchOperand(pc, length);
+
+        if(decodeCache == null) return DecodeCache.entry(opcode, length, operand);
+        return decodeCache.put(pc, opcode, length, operand);
+    }
+
+    /// Executes a single instruction and returns the address of the next one, or the negated {@link StopReason} without changing any state if it can not be executed.
+    private int execute(int opcode, int pc, int operand) {
+        switch(opcode) {
+            //region * Load / Store Operations *
+            case 0xA9 -> lda((byte) operand);
+            case 0xA5 -> lda(read(operand));
+            case 0xB5 -> lda(read(zeroPageX(operand)));
+            case 0xAD -> lda(read(operand));
+            case 0xBD -> lda(read(absoluteXRead(operand)));
+            case 0xB9 -> lda(read(absoluteYRead(operand)));
+            case 0xA1 -> lda(read(indirectX(operand)));
+            case 0xB1 -> lda(read(indirectYRead(operand)));
+
+            case 0x85 -> sta(operand);
+            case 0x95 -> sta(zeroPageX(operand));
+            case 0x8D -> sta(operand);
+            case 0x9D -> sta(absoluteX(operand));
+            case 0x99 -> sta(absoluteY(operand));
+            case 0x81 -> sta(indirectX(operand));
+            case 0x91 -> sta(indirectY(operand));
+
+            case 0xA2 -> ldx((byte) operand);
+            case 0xA6 -> ldx(read(operand));
+            case 0xB6 -> ldx(read(zeroPageY(operand)));
+            case 0xAE -> ldx(read(operand));
+            case 0xBE -> ldx(read(absoluteYRead(operand)));
+
+            case 0x86 -> stx(operand);
+            case 0x96 -> stx(zeroPageY(operand));
+            case 0x8E -> stx(operand);
+
+            case 0xA0 -> ldy((byte) operand);
+            case 0xA4 -> ldy(read(operand));
+            case 0xB4 -> ldy(read(zeroPageX(operand)));
+            case 0xAC -> ldy(read(operand));
+            case 0xBC -> ldy(read(absoluteXRead(operand)));
+
+            case 0x84 -> sty(operand);
+            case 0x94 -> sty(zeroPageY(operand)); // registered as ZERO_PAGE_Y in InstructionSet#STY
+            case 0x8C -> sty(operand);
+            //endregion
+
+            //region * Register Transfers *
+            case 0xAA -> tax();
+            case 0x8A -> txa();
+            case 0xA8 -> tay();
+            case 0x98 -> tya();
+            //endregion
+
+            //region * Stack Operations *
+            case 0xBA -> tsx();
+            case 0x9A -> txs();
+            case 0x48 -> {
+                if(stackFaults(1, 0)) return -StopReason.STACK_FAULT;
+                pha();
+            }
+            case 0x08 -> {
+                if(stackFaults(1, 0)) return -StopReason.STACK_FAULT;
+                php();
+            }
+            case 0x68 -> {
+                if(stackFaults(0, 1)) return -StopReason.STACK_FAULT;
+                pla();
+            }
+            case 0x28 -> {
+                if(stackFaults(0, 1)) return -StopReason.STACK_FAULT;
+                plp();
+            }
+            //endregion
+
+            //region * Logical *
+            case 0x29 -> and((byte) operand);
+            case 0x25 -> and(read(operand));
+            case 0x35 -> and(read(zeroPageX(operand)));
+            case 0x2D -> and(read(operand));
+            case 0x3D -> and(read(absoluteXRead(operand)));
+            case 0x39 -> and(read(absoluteYRead(operand)));
+            case 0x21 -> and(read(indirectX(operand)));
+            case 0x31 -> and(read(indirectYRead(operand)));
+
+            case 0x49 -> eor((byte) operand);
+            case 0x45 -> eor(read(operand));
+            case 0x55 -> eor(read(zeroPageX(operand)));
+            case 0x4D -> eor(read(operand));
+            case 0x5D -> eor(read(absoluteXRead(operand)));
+            case 0x59 -> eor(read(absoluteYRead(operand)));
+            case 0x41 -> eor(read(indirectX(operand)));
+            case 0x51 -> eor(read(indirectYRead(operand)));
+
+            case 0x09 -> ora((byte) operand);
+            case 0x05 -> ora(read(operand));
+            case 0x15 -> ora(read(zeroPageX(operand)));
+            case 0x0D -> ora(read(operand));
+            case 0x1D -> ora(read(absoluteXRead(operand)));
+            case 0x19 -> ora(read(absoluteYRead(operand)));
+            case 0x01 -> ora(read(indirectX(operand)));
+            case 0x11 -> ora(read(indirectYRead(operand)));
+
+            case 0x24 -> bit(read(operand));
+            case 0x2C -> bit(read(operand));
+            //endregion
+
+            //region * Arithmetic *
+            case 0x69 -> adc((byte) operand);
+            case 0x65 -> adc(read(operand));
+            case 0x75 -> adc(read(zeroPageX(operand)));
+            case 0x6D -> adc(read(operand));
+            case 0x7D -> adc(read(absoluteXRead(operand)));
+            case 0x79 -> adc(read(absoluteYRead(operand)));
+            case 0x61 -> adc(read(indirectX(operand)));
+            case 0x71 -> adc(read(indirectYRead(operand)));
+
+            case 0xE9 -> sbc((byte) operand);
+            case 0xE5 -> sbc(read(operand));
+            case 0xF5 -> sbc(read(zeroPageX(operand)));
+            case 0xED -> sbc(read(operand));
+            case 0xFD -> sbc(read(absoluteXRead(operand)));
+            case 0xF9 -> sbc(read(absoluteYRead(operand)));
+            case 0xE1 -> sbc(read(indirectX(operand)));
+            case 0xF1 -> sbc(read(indirectYRead(operand)));
+
+            case 0xC9 -> cmp((byte) operand);
+            case 0xC5 -> cmp(read(operand));
+            case 0xD5 -> cmp(read(zeroPageX(operand)));
+            case 0xCD -> cmp(read(operand));
+            case 0xDD -> cmp(read(absoluteXRead(operand)));
+            case 0xD9 -> cmp(read(absoluteYRead(operand)));
+            case 0xC1 -> cmp(read(indirectX(operand)));
+            case 0xD1 -> cmp(read(indirectYRead(operand)));
+
+            case 0xE0 -> cpx((byte) operand);
+            case 0xE4 -> cpx(read(operand));
+            case 0xEC -> cpx(read(operand));
+
+            case 0xC0 -> cpy((byte) operand);
+            case 0xC4 -> cpy(read(operand));
+            case 0xCC -> cpy(read(operand));
+            //endregion
+
+            //region * Increments & Decrements *
+            case 0xE6 -> increment(operand);
+            case 0xF6 -> increment(zeroPageX(operand));
+            case 0xEE -> increment(operand);
+            case 0xFE -> increment(absoluteX(operand));
+            case 0xE8 -> inx();
+            case 0xC8 -> iny();
+
+            case 0xC6 -> decrement(operand);
+            case 0xD6 -> decrement(zeroPageX(operand));
+            case 0xCE -> decrement(operand);
+            case 0xDE -> decrement(absoluteX(operand));
+            case 0xCA -> dex();
+            case 0x88 -> dey();
+            //endregion
+
+            //region * Shifts *
+            case 0x0A -> asl(ACCUMULATOR);
+            case 0x06 -> asl(operand);
+            case 0x16 -> asl(zeroPageX(operand));
+            case 0x0E -> asl(operand);
+            case 0x1E -> asl(absoluteX(operand));
+
+            case 0x4A -> lsr(ACCUMULATOR);
+            case 0x46 -> lsr(operand);
+            case 0x56 -> lsr(zeroPageX(operand));
+            case 0x4E -> lsr(operand);
+            case 0x5E -> lsr(absoluteX(operand));
+
+            case 0x2A -> rol(ACCUMULATOR);
+            case 0x26 -> rol(operand);
+            case 0x36 -> rol(zeroPageX(operand));
+            case 0x2E -> rol(operand);
+            case 0x3E -> rol(absoluteX(operand));
+
+            case 0x6A -> ror(ACCUMULATOR);
+            case 0x66 -> ror(operand);
+            case 0x76 -> ror(zeroPageX(operand));
+            case 0x6E -> ror(operand);
+            case 0x7E -> ror(absoluteX(operand));
+            //endregion
+
+            //region * Jumps & Calls *
+            case 0x4C -> {
+                return backEdge(pc, operand);
+            }
+            case 0x6C -> {
+                return -StopReason.UNIMPLEMENTED_OPCODE; // InstructionSet#JMP does not support INDIRECT either
+            }
+            case 0x20 -> {
+                if(stackFaults(2, 0)) return -StopReason.STACK_FAULT;
+                jsr(pc);
+                return operand;
+            }
+            case 0x60 -> {
+                if(stackFaults(0, 2)) return -StopReason.STACK_FAULT;
+                return rts();
+            }
+            //endregion
+
+            //region * Branches *
+            case 0x90 -> {
+                return branch(pc, operand, !this.registrars.isCarry());
+            }
+            case 0xB0 -> {
+                return branch(pc, operand, this.registrars.isCarry());
+            }
+            case 0xD0 -> {
+                return branch(pc, operand, !this.registrars.isZero());
+            }
+            case 0xF0 -> {
+                return branch(pc, operand, this.registrars.isZero());
+            }
+            case 0x10 -> {
+                return branch(pc, operand, !this.registrars.isNegative());
+            }
+            case 0x30 -> {
+                return branch(pc, operand, this.registrars.isNegative());
+            }
+            case 0x50 -> {
+                return branch(pc, operand, !this.registrars.isOverflow());
+            }
+            case 0x70 -> {
+                return branch(pc, operand, this.registrars.isOverflow());
+            }
+            //endregion
+
+            //region * Status Flag Changes *
+            case 0x18 -> clc();
+            case 0xD8 -> cld();
+            case 0x58 -> cli();
+            case 0xB8 -> clv();
+            case 0x38 -> sec();
+            case 0xF8 -> sed();
+            case 0x78 -> sei();
+            //endregion
+
+            //region * System Functions *
+            case 0x00 -> this.registrars.status |= PackedRegistrars.BREAK;
+            case 0xEA -> {}
+            case 0x40 -> rti();
+            //endregion
+
+            default -> {
+                return executeIllegal(opcode, pc, operand);
+            }
+        }
+
+        return pc + LENGTHS[opcode];
+    }
+
+    /// Executes the opcodes of {@link IllegalInstructionSet}, kept out of {@link #execute(int, int, int)} so that the legal switch stays small enough to be compiled.
+    private int executeIllegal(int opcode, int pc, int operand) {
+        if(!this.illegalOpcodes) return -StopReason.UNIMPLEMENTED_OPCODE;
+
+        switch(opcode) {
+            case 0x80, 0x82, 0xC2, 0xE2, 0x89,
+                 0x04, 0x14, 0x34, 0x44, 0x54, 0x64, 0x74, 0xD4, 0xF4,
+                 0x1A, 0x3A, 0x5A, 0x7A, 0xDA, 0xFA,
+                 0x0C, 0x1C, 0x3C, 0x5C, 0x7C, 0xDC, 0xFC -> {}
+
+            case 0x02, 0x12, 0x22, 0x32, 0x42, 0x52, 0x62, 0x72, 0x92, 0xB2, 0xD2, 0xF2 -> {
+                return -StopReason.JAM;
+            }
+
+            // ALR, ANC, ANC2, ANE and ARR share the AND handler, ALR and ARR then shift the operand byte in place
+            case 0x4B -> {
+                and((byte) operand);
+                lsr(immediate(pc));
+            }
+            case 0x0B, 0x2B -> {
+                and((byte) operand);
+                this.registrars.setCarry(this.registrars.accumulator < 0);
+            }
+            case 0x8B -> and((byte) operand);
+            case 0x6B -> {
+                and((byte) operand);
+                ror(immediate(pc));
+            }
+
+            // The composite opcodes resolve their address once and do a single read-modify-write
+            //region DCP
+            case 0xC7 -> dcp(operand);
+            case 0xD7 -> dcp(zeroPageX(operand));
+            case 0xCF -> dcp(operand);
+            case 0xDF -> dcp(absoluteX(operand));
+            case 0xDB -> dcp(absoluteY(operand));
+            case 0xC3 -> dcp(indirectX(operand));
+            case 0xD3 -> dcp(indirectY(operand));
+            //endregion
+
+            //region ISC
+            case 0xE7 -> isc(operand);
+            case 0xF7 -> isc(zeroPageX(operand));
+            case 0xEF -> isc(operand);
+            case 0xFF -> isc(absoluteX(operand));
+            case 0xFB -> isc(absoluteY(operand));
+            case 0xE3 -> isc(indirectX(operand));
+            case 0xF3 -> isc(indirectY(operand));
+            //endregion
+
+            case 0xBB -> {
+                lda(read(absoluteYRead(operand)));
+                tsx();
+            }
+
+            //region LAX / LXA
+            case 0xA7 -> lax(read(operand));
+            case 0xB7 -> lax(read(zeroPageY(operand)));
+            case 0xAF -> lax(read(operand));
+            case 0xBF -> lax(read(absoluteYRead(operand)));
+            case 0xA3 -> lax(read(indirectX(operand)));
+            case 0xB3 -> lax(read(indirectYRead(operand)));
+            case 0xAB -> lax((byte) operand);
+            //endregion
+
+            //region RLA
+            case 0x27 -> rla(operand);
+            case 0x37 -> rla(zeroPageX(operand));
+            case 0x2F -> rla(operand);
+            case 0x3F -> rla(absoluteX(operand));
+            case 0x3B -> rla(absoluteY(operand));
+            case 0x23 -> rla(indirectX(operand));
+            case 0x33 -> rla(indirectY(operand));
+            //endregion
+
+            //region RRA
+            case 0x67 -> rra(operand);
+            case 0x77 -> rra(zeroPageX(operand));
+            case 0x6F -> rra(operand);
+            case 0x7F -> rra(absoluteX(operand));
+            case 0x7B -> rra(absoluteY(operand));
+            case 0x63 -> rra(indirectX(operand));
+            case 0x73 -> rra(indirectY(operand));
+            //endregion
+
+            //region SAX / SBX
+            case 0x87 -> write(operand, (byte)(this.registrars.accumulator & this.registrars.registerX));
+            case 0x97 -> write(zeroPageY(operand), (byte)(this.registrars.accumulator & this.registrars.registerX));
+            case 0x8F -> write(operand, (byte)(this.registrars.accumulator & this.registrars.registerX));
+            case 0x83 -> write(indirectX(operand), (byte)(this.registrars.accumulator & this.registrars.registerX));
+            case 0xCB -> {
+                byte value = (byte)(this.registrars.accumulator & this.registrars.registerX);
+
+                this.registrars.registerX = (byte)(value - operand);
+
+                this.registrars.setCarry(this.registrars.accumulator >= value);
+                this.registrars.zeroNegative = PackedRegistrars.zeroNegative(this.registrars.accumulator == value, this.registrars.registerX < 0);
+            }
+            //endregion
+
+            //region SHA / SHX / SHY / TAS
+            case 0x9F -> write(absoluteY(operand), (byte)(this.registrars.accumulator & this.registrars.registerX & (operand >>> 8)));
+            case 0x93 -> write(indirectY(operand), (byte)(this.registrars.accumulator & this.registrars.registerX & operand));
+            case 0x9E -> write(absoluteY(operand), (byte)(this.registrars.registerX & (operand >>> 8)));
+            case 0x9C -> write(absoluteX(operand), (byte)(this.registrars.registerY & (operand >>> 8)));
+            case 0x9B -> {
+                byte value = (byte)(this.registrars.accumulator & this.registrars.registerX);
+                this.memory.writeToStackPointer(value);
+                write(absoluteY(operand), (byte)(value & (operand >>> 8)));
+            }
+            //endregion
+
+            //region SLO
+            case 0x07 -> slo(operand);
+            case 0x17 -> slo(zeroPageX(operand));
+            case 0x0F -> slo(operand);
+            case 0x1F -> slo(absoluteX(operand));
+            case 0x1B -> slo(absoluteY(operand));
+            case 0x03 -> slo(indirectX(operand));
+            case 0x13 -> slo(indirectY(operand));
+            //endregion
+
+            //region SRE
+            case 0x47 -> sre(operand);
+            case 0x57 -> sre(zeroPageX(operand));
+            case 0x4F -> sre(operand);
+            case 0x5F -> sre(absoluteX(operand));
+            case 0x5B -> sre(absoluteY(operand));
+            case 0x43 -> sre(indirectX(operand));
+            case 0x53 -> sre(indirectY(operand));
+            //endregion
+
+            case 0xEB -> sbc((byte) operand);
+
+            default -> {
+                return -StopReason.UNIMPLEMENTED_OPCODE;
+            }
+        }
+
+        return pc + LENGTHS[opcode];
+    }
+
+    /// Returns `true` if pushing or pulling that many bytes would index outside of the stack, which is stored at the signed 16 bit stack pointer of {@link Memory}.
+    private boolean stackFaults(int pushes, int pulls) {
+        int stackPointer = this.memory.stackPointer;
+        return stackPointer < Math.max(pulls - 1, 0) || stackPointer + Math.max(pushes - 1, 0) > Short.MAX_VALUE;
+    }
+
+    //region * Addressing Modes *
+    byte read(int address) {
+        return this.memory.getValue(address);
+    }
+
+    void write(int address, byte value) {
+        this.memory.writeValue(address, value);
+    }
+
+    /// Reads the operand bytes of the instruction at pc, for zero page and absolute addressing the operand already is the address.
+    private int fetchOperand(int pc, int length) {
+        return switch(length) {
+            case 2 -> operand8(pc);
+            case 3 -> operand16(pc);
+            default -> 0;
+        };
+    }
+
+    private int operand8(int pc) {
+        return Byte.toUnsignedInt(this.memory.fetchValue(pc + 1));
+    }
+
+    private int operand16(int pc) {
+        return Byte.toUnsignedInt(this.memory.fetchValue(pc + 1)) | (Byte.toUnsignedInt(this.memory.fetchValue(pc + 2)) << 8);
+    }
+
+    private int immediate(int pc) {
+        return (pc + 1) & 0xFFFF;
+    }
+
+    /// Same as {@link Memory#getAddress}, the index is added without wrapping around inside the zero page.
+    int zeroPageX(int operand) {
+        return operand + Byte.toUnsignedInt(this.registrars.registerX);
+    }
+
+    int zeroPageY(int operand) {
+        return operand + Byte.toUnsignedInt(this.registrars.registerY);
+    }
+
+    int absoluteX(int operand) {
+        return (operand + Byte.toUnsignedInt(this.registrars.registerX)) & 0xFFFF;
+    }
+
+    int absoluteY(int operand) {
+        return (operand + Byte.toUnsignedInt(this.registrars.registerY)) & 0xFFFF;
+    }
+
+    int indirectX(int operand) {
+        int pointer = (operand + Byte.toUnsignedInt(this.registrars.registerX)) & 0xFF;
+        return Byte.toUnsignedInt(this.memory.getValue(pointer)) | (Byte.toUnsignedInt(this.memory.getValue((pointer + 1) & 0xFF)) << 8);
+    }
+
+    int indirectY(int operand) {
+        int baseAddress = Byte.toUnsignedInt(this.memory.getValue(operand)) | (Byte.toUnsignedInt(this.memory.getValue((operand + 1) & 0xFF)) << 8);
+        return (baseAddress + Byte.toUnsignedInt(this.registrars.registerY)) & 0xFFFF;
+    }
+
+    // The read variants are used by instructions whose cycle count in InstructionInfo leaves out the page crossing cycle
+
+    int absoluteXRead(int operand) {
+        return crossPage(operand, absoluteX(operand));
+    }
+
+    int absoluteYRead(int operand) {
+        return crossPage(operand, absoluteY(operand));
+    }
+
+    int indirectYRead(int operand) {
+        int address = indirectY(operand);
+        return crossPage((address - Byte.toUnsignedInt(this.registrars.registerY)) & 0xFFFF, address);
+    }
+
+    private int crossPage(int baseAddress, int address) {
+        if(((baseAddress ^ address) & 0xFF00) != 0) this.cycles++;
+        return address;
+    }
+
+    private int branch(int pc, int operand, boolean condition) {
+        int nextAddress = (pc + 2) & 0xFFFF;
+        if(!condition) return nextAddress;
+
+        int target = (nextAddress + (byte) operand) & 0xFFFF;
+        this.cycles += ((nextAddress ^ target) & 0xFF00) == 0 ? 1 : 2;
+        return backEdge(pc, target);
+    }
+
+    /// Reports backward jumps to the {@link BlockCompiler}, the targets of the hot ones are compiled.
+    private int backEdge(int pc, int target) {
+        if(target <= pc && this.blockCompiler != null) this.blockCompiler.backEdge(target);
+        return target;
+    }
+    //endregion
+
+    //region * Operations *
+    private void setZeroNegative(byte value) {
+        this.registrars.zeroNegative = value;
+    }
+
+    void lda(byte value) {
+        setZeroNegative(this.registrars.accumulator = value);
+    }
+
+    void ldx(byte value) {
+        setZeroNegative(this.registrars.registerX = value);
+    }
+
+    void ldy(byte value) {
+        setZeroNegative(this.registrars.registerY = value);
+    }
+
+    void lax(byte value) {
+        this.registrars.accumulator = value;
+        setZeroNegative(this.registrars.registerX = value);
+    }
+
+    void and(byte value) {
+        setZeroNegative(this.registrars.accumulator &= value);
+    }
+
+    void eor(byte value) {
+        setZeroNegative(this.registrars.accumulator ^= value);
+    }
+
+    void ora(byte value) {
+        setZeroNegative(this.registrars.accumulator |= value);
+    }
+
+    void bit(byte value) {
+        this.registrars.zeroNegative = (this.registrars.accumulator & value & 0xFF) | ((value & 0x80) << 1);
+        this.registrars.setOverflow((value & 0x40) != 0);
+    }
+
+    void adc(byte value) {
+        int a = Byte.toUnsignedInt(this.registrars.accumulator);
+        int b = Byte.toUnsignedInt(value);
+        int result = a + b + (this.registrars.status & PackedRegistrars.CARRY);
+
+        this.registrars.setCarry(result > 0xFF);
+        this.registrars.setOverflow(((a ^ result) & (b ^ result) & 0x80) != 0);
+        setZeroNegative(this.registrars.accumulator = (byte)result);
+    }
+
+    void sbc(byte value) {
+        int a = Byte.toUnsignedInt(this.registrars.accumulator);
+        int b = Byte.toUnsignedInt(value);
+        int result = a - b - (~this.registrars.status & PackedRegistrars.CARRY);
+
+        this.registrars.setCarry(result >= 0);
+        this.registrars.setOverflow(((a ^ result) & (~b ^ result) & 0x80) != 0);
+        setZeroNegative(this.registrars.accumulator = (byte)result);
+    }
+
+    private void compare(byte register, byte value) {
+        int r = Byte.toUnsignedInt(register);
+        int m = Byte.toUnsignedInt(value);
+
+        this.registrars.setCarry(r >= m);
+        this.registrars.zeroNegative = (r - m) & 0xFF;
+    }
+
+    void cmp(byte value) {
+        compare(this.registrars.accumulator, value);
+    }
+
+    void cpx(byte value) {
+        compare(this.registrars.registerX, value);
+    }
+
+    void cpy(byte value) {
+        compare(this.registrars.registerY, value);
+    }
+
+    void sta(int address) {
+        write(address, this.registrars.accumulator);
+    }
+
+    void stx(int address) {
+        write(address, this.registrars.registerX);
+    }
+
+    void sty(int address) {
+        write(address, this.registrars.registerY);
+    }
+
+    void tax() {
+        setZeroNegative(this.registrars.registerX = this.registrars.accumulator);
+    }
+
+    void txa() {
+        setZeroNegative(this.registrars.accumulator = this.registrars.registerX);
+    }
+
+    void tay() {
+        setZeroNegative(this.registrars.registerY = this.registrars.accumulator);
+    }
+
+    void tya() {
+        setZeroNegative(this.registrars.accumulator = this.registrars.registerY);
+    }
+
+    void tsx() {
+        setZeroNegative(this.registrars.registerX = this.memory.getStackPointerValue());
+    }
+
+    void txs() {
+        this.memory.writeToStackPointer(this.registrars.registerX);
+    }
+
+    void pha() {
+        this.memory.pushToStack(this.registrars.accumulator);
+    }
+
+    void php() {
+        this.memory.pushToStack(this.registrars.getProcessorStatus());
+    }
+
+    void pla() {
+        setZeroNegative(this.registrars.accumulator = this.memory.pullFromStack());
+    }
+
+    void plp() {
+        this.registrars.setProcessorStatus(this.memory.pullFromStack());
+    }
+
+    void inx() {
+        setZeroNegative(++this.registrars.registerX);
+    }
+
+    void iny() {
+        setZeroNegative(++this.registrars.registerY);
+    }
+
+    void dex() {
+        setZeroNegative(--this.registrars.registerX);
+    }
+
+    void dey() {
+        setZeroNegative(--this.registrars.registerY);
+    }
+
+    void clc() {
+        this.registrars.status &= ~PackedRegistrars.CARRY;
+    }
+
+    void cld() {
+        this.registrars.status &= ~PackedRegistrars.DECIMAL_MODE;
+    }
+
+    void cli() {
+        this.registrars.status &= ~PackedRegistrars.INTERRUPT_DISABLE;
+    }
+
+    void clv() {
+        this.registrars.status &= ~PackedRegistrars.OVERFLOW;
+    }
+
+    void sec() {
+        this.registrars.status |= PackedRegistrars.CARRY;
+    }
+
+    void sed() {
+        this.registrars.status |= PackedRegistrars.DECIMAL_MODE;
+    }
+
+    void sei() {
+        this.registrars.status |= PackedRegistrars.INTERRUPT_DISABLE;
+    }
+
+    void rti() {
+        this.registrars.status &= ~PackedRegistrars.BREAK;
+    }
+
+    /// Pushes the return address of the JSR at pc, high byte first.
+    void jsr(int pc) {
+        int returnAddress = (pc + 2) & 0xFFFF;
+        this.memory.pushToStack((byte)(returnAddress >> 8));
+        this.memory.pushToStack((byte)returnAddress);
+    }
+
+    /// Pulls the return address pushed by {@link #jsr(int)} and returns it.
+    int rts() {
+        int low = Byte.toUnsignedInt(this.memory.pullFromStack());
+        int high = Byte.toUnsignedInt(this.memory.pullFromStack());
+        return (high << 8) | low;
+    }
+
+    void increment(int address) {
+        byte result = (byte)(read(address) + 1);
+        write(address, result);
+        setZeroNegative(result);
+    }
+
+    void decrement(int address) {
+        byte result = (byte)(read(address) - 1);
+        write(address, result);
+        setZeroNegative(result);
+    }
+
+    private byte load(int address) {
+        return address == ACCUMULATOR ? this.registrars.accumulator : read(address);
+    }
+
+    private void store(int address, byte value) {
+        if(address == ACCUMULATOR) this.registrars.accumulator = value;
+        else write(address, value);
+    }
+
+    /// Like {@link InstructionSet#ASL}, the zero flag is taken from the accumulator after the result has been stored.
+    void asl(int address) {
+        byte oldValue = load(address);
+        byte result = (byte)(oldValue << 1);
+        store(address, result);
+
+        this.registrars.setCarry(oldValue < 0);
+        this.registrars.zeroNegative = PackedRegistrars.zeroNegative(this.registrars.accumulator == 0, result < 0);
+    }
+
+    void lsr(int address) {
+        byte oldValue = load(address);
+        byte result = (byte)(Byte.toUnsignedInt(oldValue) >>> 1);
+        store(address, result);
+
+        this.registrars.setCarry((oldValue & 0x01) != 0);
+        this.registrars.zeroNegative = result;
+    }
+
+    /// Like {@link InstructionSet#ROL}, the zero flag is taken from the accumulator after the result has been stored.
+    void rol(int address) {
+        byte oldValue = load(address);
+        byte result = (byte)((oldValue << 1) | (this.registrars.status & PackedRegistrars.CARRY));
+        store(address, result);
+
+        this.registrars.setCarry(oldValue < 0);
+        this.registrars.zeroNegative = PackedRegistrars.zeroNegative(this.registrars.accumulator == 0, result < 0);
+    }
+
+    /// Like {@link InstructionSet#ROR}, the zero flag is taken from the accumulator after the result has been stored.
+    void ror(int address) {
+        byte oldValue = load(address);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) >> 1) | ((this.registrars.status & PackedRegistrars.CARRY) << 7));
+        store(address, result);
+
+        this.registrars.setCarry((oldValue & 0x01) != 0);
+        this.registrars.zeroNegative = PackedRegistrars.zeroNegative(this.registrars.accumulator == 0, result < 0);
+    }
+
+    // The composite illegal opcodes, the flags of the shift or increment are overwritten by the second half except for the carry of a shift
+
+    void dcp(int address) {
+        byte result = (byte)(read(address) - 1);
+        write(address, result);
+        cmp(result);
+    }
+
+    void isc(int address) {
+        byte result = (byte)(read(address) + 1);
+        write(address, result);
+        sbc(result);
+    }
+
+    void slo(int address) {
+        byte oldValue = read(address);
+        byte result = (byte)(oldValue << 1);
+        write(address, result);
+
+        this.registrars.setCarry(oldValue < 0);
+        ora(result);
+    }
+
+    void sre(int address) {
+        byte oldValue = read(address);
+        byte result = (byte)(Byte.toUnsignedInt(oldValue) >>> 1);
+        write(address, result);
+
+        this.registrars.setCarry((oldValue & 0x01) != 0);
+        eor(result);
+    }
+
+    void rla(int address) {
+        byte oldValue = read(address);
+        byte result = (byte)((oldValue << 1) | (this.registrars.status & PackedRegistrars.CARRY));
+        write(address, result);
+
+        this.registrars.setCarry(oldValue < 0);
+        and(result);
+    }
+
+    void rra(int address) {
+        byte oldValue = read(address);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) >> 1) | ((this.registrars.status & PackedRegistrars.CARRY) << 7));
+        write(address, result);
+
+        this.registrars.setCarry((oldValue & 0x01) != 0);
+        adc(result);
+    }
+
+    //endregion
+
+    /// Instruction sizes and base cycle counts indexed by opcode, taken from the {@link InstructionInfo} entries of both instruction sets.
+    static final int[] LENGTHS = new int[0x100];
+    static final int[] CYCLES = new int[0x100];
+
+    /// Number of instructions and combined base cycles of every fusion in {@link SuperInstructions}.
+    private static final int[] FUSION_LENGTHS = new int[SuperInstructions.FUSIONS];
+    private static final int[] FUSION_CYCLES = new int[SuperInstructions.FUSIONS];
+
+    static {
+        Arrays.fill(LENGTHS, 1);
+        registerInfos(InstructionSet.instructionRegistry);
+        registerInfos(IllegalInstructionSet.instructionRegistry);
+
+        for(int fusion = 0;fusion<SuperInstructions.FUSIONS;fusion++) {
+            for(int opcode : SuperInstructions.getOpcodes(fusion)) {
+                FUSION_LENGTHS[fusion]++;
+                FUSION_CYCLES[fusion] += CYCLES[opcode];
+            }
+        }
+    }
+
+    private static void registerInfos(List<Instruction> instructionRegistry) {
+        for(Instruction instruction : instructionRegistry) {
+            for(InstructionInfo info : instruction.getInfos()) {
+                LENGTHS[info.opcode()] = info.size();
+                CYCLES[info.opcode()] = info.cycles();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package nazario.emulator;
+
+import java.util.Arrays;
+
+/// Predecoded instructions for {@link Cpu}, indexed by the address of their opcode.
+///
+/// An entry holds the opcode, the instruction length and the operand (which already is the address for zero page and absolute addressing), so a cached instruction is executed without reading its bytes from {@link Memory} again.
+/// {@link Memory} calls {@link #invalidate(int)} on every write, which drops exactly the entries whose bytes cover the written address.
+public class DecodeCache {
+    private static final int LENGTH_SHIFT = 24;
+    private static final int VALID = 1 << 26;
+
+    /// Shared by every cache until it caches its first instruction, so that a new cpu, e.g. a fork, does not allocate its entries before it runs.
+    private static final int[] NO_ENTRIES = new int[0x10000];
+
+    protected int[] entries = NO_ENTRIES;
+    /// Pages that contain at least one byte of a cached instruction, writes to other pages skip the lookup.
+    protected final boolean[] codePages = new boolean[0x100];
+    protected int invalidations;
+
+    /// Returns the cached entry for address or 0 if the instruction there has not been decoded yet.
+    public int get(int address) {
+        return this.entries[address];
+    }
+
+    /// Caches an instruction and returns its entry.
+    public int put(int address, int opcode, int length, int operand) {
+        int entry = entry(opcode, length, operand);
+        if(this.entries == NO_ENTRIES) this.entries = new int[0x10000];
+        this.entries[address] = entry;
+
+        this.codePages[address >>> 8] = true;
+        this.codePages[((address + length - 1) & 0xFFFF) >>> 8] = true;
+        return entry;
+    }
+
+    public void invalidate(int address) {
+        if(!this.codePages[address >>> 8] && !this.codePages[((address - 2) & 0xFFFF) >>> 8]) return;
+
+        drop(address, 1);
+        drop((address - 1) & 0xFFFF, 2);
+        drop((address - 2) & 0xFFFF, 3);
+    }
+
+    /// Drops the entry at address if the instruction there is at least minimumLength bytes long, so that it covers the written byte.
+    private void drop(int address, int minimumLength) {
+        if(length(this.entries[address]) < minimumLength) return;
+
+        this.entries[address] = 0;
+        this.invalidations++;
+    }
+
+    /// Drops the entries covering any of the length bytes starting at start.
+    public void invalidateRange(int start, int length) {
+        for(int page = start >>> 8;page<=(start + length - 1) >>> 8;page++) {
+            if(!this.codePages[page & 0xFF] && !this.codePages[(page - 1) & 0xFF]) continue;
+
+            for(int i = 0;i<length;i++) invalidate((start + i) & 0xFFFF);
+            return;
+        }
+    }
+
+    /// Drops every entry, needed after the memory array was changed without going through {@link Memory#writeValue(int, byte)}.
+    public void invalidateAll() {
+        if(this.entries != NO_ENTRIES) Arrays.fill(this.entries, 0);
+        Arrays.fill(this.codePages, false);
+        this.invalidations++;
+    }
+
+    /// Number of times a cached instruction has been dropped, {@link BlockCompiler} compares it to notice writes to code it has compiled.
+    public int getInvalidations() {
+        return this.invalidations;
+    }
+
+    /// Packs a decoded instruction, use {@link #opcode(int)}, {@link #operand(int)} and {@link #length(int)} to read it back.
+    public static int entry(int opcode, int length, int operand) {
+        return VALID | (length << LENGTH_SHIFT) | (operand << 8) | opcode;
+    }
+
+    public static int opcode(int entry) {
+        return entry & 0xFF;
+    }
+
+    public static int operand(int entry) {
+        return (entry >>> 8) & 0xFFFF;
+    }
+
+    public static int length(int entry) {
+        return (entry >>> LENGTH_SHIFT) & 0x3;
+    }
+}
@@ -0,0 +1,170 @@
+package nazario.emulator;
+
+import jdk.jfr.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// JDK Flight Recorder events of the emulator, recorded alongside the GC and JIT events of the JVM when a recording is running, e.g. with `-XX:StartFlightRecording`.
+///
+/// Every event covers a whole run, snapshot, dump or compiled block, nothing is recorded per instruction.
+/// {@link Throughput} is sampled once a second from every machine that is inside {@link Cpu#run(long, long)}.
+public final class EmulatorEvents {
+    private static final String CATEGORY = "6502 Emulator";
+
+    /// Machines inside {@link Cpu#run(long, long)} with their instruction count, cycles and time of the last {@link Throughput} sample.
+    private static final Map<Cpu, long[]> RUNNING = new ConcurrentHashMap<>();
+
+    static {
+        FlightRecorder.addPeriodicEvent(Throughput.class, EmulatorEvents::sampleThroughput);
+    }
+
+    private EmulatorEvents() {}
+
+    static void started(Cpu cpu) {
+        RUNNING.put(cpu, new long[]{cpu.instructionCount, cpu.cycles, System.nanoTime()});
+    }
+
+    static void stopped(Cpu cpu) {
+        RUNNING.remove(cpu);
+    }
+
+    /// Reads the counters of the running machines from the recorder thread with the opaque loads of {@link MachineMonitor}, a sample can lag behind the cpu thread by a few instructions.
+    private static void sampleThroughput() {
+        long now = System.nanoTime();
+        for(Map.Entry<Cpu, long[]> running : RUNNING.entrySet()) {
+            Cpu cpu = running.getKey();
+            long[] last = running.getValue();
+            long instructions = (long) MachineMonitor.INSTRUCTION_COUNT.getOpaque(cpu);
+            long cycles = (long) MachineMonitor.CYCLES.getOpaque(cpu);
+            double seconds = (now - last[2]) / 1e9;
+
+            Throughput event = new Throughput();
+            event.machine = cpu.getMachineId();
+            event.programCounter = (int) MachineMonitor.PROGRAM_COUNTER.getOpaque(cpu);
+            event.instructions = instructions - last[0];
+            event.cycles = cycles - last[1];
+            event.instructionsPerSecond = seconds == 0 ? 0 : event.instructions / seconds;
+            event.megahertz = seconds == 0 ? 0 : event.cycles / seconds / 1e6;
+            event.commit();
+
+            last[0] = instructions;
+            last[1] = cycles;
+            last[2] = now;
+        }
+    }
+
+    @Name("nazario.emulator.Run")
+    @Label("Machine Run")
+    @Category(CATEGORY)
+    @Description("One call of Cpu.run, from the first instruction to the one that stopped it")
+    @StackTrace(false)
+    public static class Run extends Event {
+        @Label("Machine")
+        public int machine;
+
+        @Label("Start Address")
+        public int startAddress;
+
+        @Label("Stop Address")
+        public int stopAddress;
+
+        @Label("Stop Reason")
+        public String stopReason;
+
+        @Label("Instructions")
+        public long instructions;
+
+        @Label("Cycles")
+        public long cycles;
+    }
+
+    @Name("nazario.emulator.Throughput")
+    @Label("Machine Throughput")
+    @Category(CATEGORY)
+    @Description("Instructions and cycles executed by a running machine since its last sample")
+    @Period("1 s")
+    @StackTrace(false)
+    public static class Throughput extends Event {
+        @Label("Machine")
+        public int machine;
+
+        @Label("Program Counter")
+        public int programCounter;
+
+        @Label("Instructions")
+        public long instructions;
+
+        @Label("Cycles")
+        public long cycles;
+
+        @Label("Instructions per Second")
+        public double instructionsPerSecond;
+
+        @Label("Effective MHz")
+        public double megahertz;
+    }
+
+    @Name("nazario.emulator.Snapshot")
+    @Label("Snapshot")
+    @Category(CATEGORY)
+    @Description("Taking a snapshot of a machine or restoring one from it")
+    @StackTrace(false)
+    public static class SnapshotOperation extends Event {
+        @Label("Machine")
+        public int machine;
+
+        @Label("Operation")
+        public String operation;
+    }
+
+    @Name("nazario.emulator.MemoryDump")
+    @Label("Memory Dump")
+    @Category(CATEGORY)
+    @Description("Writing memory to a file, a full image or only the changed pages")
+    @StackTrace(false)
+    public static class MemoryDump extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Incremental")
+        public boolean incremental;
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("nazario.emulator.BlockCompilation")
+    @Label("Block Compilation")
+    @Category(CATEGORY)
+    @Description("A hot block translated to bytecode by the BlockCompiler")
+    @StackTrace(false)
+    public static class BlockCompilation extends Event {
+        @Label("Machine")
+        public int machine;
+
+        @Label("Start Address")
+        public int startAddress;
+
+        @Label("Instructions")
+        public int instructions;
+
+        @Label("Bytecode Size")
+        @DataAmount
+        public int bytecodeSize;
+    }
+
+    @Name("nazario.emulator.BlockInvalidation")
+    @Label("Block Invalidation")
+    @Category(CATEGORY)
+    @Description("A compiled block discarded because its code was overwritten, it is compiled again once it is hot")
+    @StackTrace(false)
+    public static class BlockInvalidation extends Event {
+        @Label("Machine")
+        public int machine;
+
+        @Label("Start Address")
+        public int startAddress;
+    }
+}
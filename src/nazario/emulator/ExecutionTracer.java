@@ -0,0 +1,273 @@
+package nazario.emulator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/// Records the state of the {@link Cpu} before every instruction into an off-heap ring buffer, a background thread drains it into a compressed trace file, see {@link TraceReader}.
+///
+/// Every record is 16 bytes in the ring: the cycle count in the low 48 bits and the program counter in the high 16 bits of the first long, opcode, A, X, Y, P and the stack pointer in the second.
+/// {@link #record(int, int, int, int, int, int, int, long)} never blocks and never allocates, if the writer falls behind and the ring is full the record is dropped and the file contains a gap marker with the number of dropped records.
+///
+/// The file is gzip compressed and starts with {@link #MAGIC} and {@link #VERSION}. Every record is a tag byte with a bit for every one of A, X, Y, P and SP that changed, the opcode, the program counter and cycle count and then the changed registers.
+/// The program counter is left out if it follows the previous instruction and the cycle count if it grew by the base cycles of the previous opcode, otherwise they are written as zigzag varint differences.
+/// A tag of {@link #GAP} is followed by the varint number of dropped records.
+public class ExecutionTracer implements Closeable {
+    public static final int MAGIC = 0x36355452; // "65TR"
+    public static final int VERSION = 1;
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    static final int CHANGED_A = 1;
+    static final int CHANGED_X = 1 << 1;
+    static final int CHANGED_Y = 1 << 2;
+    static final int CHANGED_P = 1 << 3;
+    static final int CHANGED_SP = 1 << 4;
+    static final int SEQUENTIAL_PC = 1 << 5;
+    static final int BASE_CYCLES = 1 << 6;
+    static final int GAP = 0x80;
+
+    private static final int RECORD_SIZE = 16;
+    private static final long GAP_SLOT = 0xFFL << 56;
+    private static final long IDLE_NANOS = 100_000;
+    private static final int RELEASE_INTERVAL = 4096;
+
+    protected final ByteBuffer ring;
+    protected final int capacity;
+    protected final OutputStream outputStream;
+    protected final Thread writer;
+
+    // Written by the cpu thread only
+    protected long head;
+    protected long cachedTail;
+    protected long pendingGap;
+    protected long recorded;
+    protected long dropped;
+
+    protected final AtomicLong published = new AtomicLong();
+    protected final AtomicLong tail = new AtomicLong();
+    protected volatile boolean closed;
+    protected volatile IOException failure;
+
+    protected ExecutionTracer(OutputStream outputStream, int capacity) throws IOException {
+        if(Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity has to be a power of two: " + capacity);
+
+        this.ring = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+        this.outputStream = new GZIPOutputStream(new BufferedOutputStream(outputStream, 1 << 16), 1 << 16) {
+            {
+                // The writer has to keep up with the cpu, the delta encoding already removes most of the redundancy
+                this.def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+
+        DataOutputStream header = new DataOutputStream(this.outputStream);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+
+        this.writer = new Thread(this::drain, "Trace writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /// Starts tracing into a new file at path with a ring of capacity records, which has to be a power of two.
+    public static ExecutionTracer open(Path path, int capacity) throws IOException {
+        return new ExecutionTracer(Files.newOutputStream(path), capacity);
+    }
+
+    public static ExecutionTracer open(Path path) throws IOException {
+        return open(path, DEFAULT_CAPACITY);
+    }
+
+    /// Called by {@link Cpu} before every instruction, only from the thread running the cpu.
+    public void record(int pc, int opcode, int accumulator, int registerX, int registerY, int status, int stackPointer, long cycles) {
+        long head = this.head;
+        int needed = this.pendingGap == 0 ? 1 : 2;
+        if(head + needed - this.cachedTail > this.capacity) {
+            this.cachedTail = this.tail.get();
+            if(head + needed - this.cachedTail > this.capacity) {
+                this.pendingGap++;
+                this.dropped++;
+                return;
+            }
+        }
+
+        if(this.pendingGap != 0) {
+            put(head++, this.pendingGap, GAP_SLOT);
+            this.pendingGap = 0;
+        }
+        put(head++, (cycles & 0xFFFF_FFFF_FFFFL) | (long) pc << 48,
+                (opcode & 0xFF) | (accumulator & 0xFF) << 8 | (registerX & 0xFF) << 16 | (long) (registerY & 0xFF) << 24 | (long) (status & 0xFF) << 32 | (long) (stackPointer & 0xFFFF) << 40);
+
+        this.head = head;
+        this.recorded++;
+        this.published.lazySet(head);
+    }
+
+    private void put(long index, long first, long second) {
+        int offset = (int) (index & (this.capacity - 1)) * RECORD_SIZE;
+        this.ring.putLong(offset, first);
+        this.ring.putLong(offset + 8, second);
+    }
+
+    /// Number of records written into the ring, read it from the cpu thread or after {@link #close()}.
+    public long getRecorded() {
+        return this.recorded;
+    }
+
+    /// Number of records dropped because the ring was full, read it from the cpu thread or after {@link #close()}.
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    /// Waits until every record has been written and closes the file. The cpu must have stopped, it must not record anything after this.
+    @Override
+    public void close() throws IOException {
+        // Records dropped at the very end still get their gap marker, waiting for the writer is fine here
+        if(this.pendingGap != 0) {
+            while(this.head + 1 - this.tail.get() > this.capacity && this.writer.isAlive()) LockSupport.parkNanos(IDLE_NANOS);
+            put(this.head++, this.pendingGap, GAP_SLOT);
+            this.pendingGap = 0;
+            this.published.lazySet(this.head);
+        }
+
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the trace");
+        }
+        if(this.failure != null) throw this.failure;
+    }
+
+    //region * Writer Thread *
+    private void drain() {
+        Encoder encoder = new Encoder(this.outputStream);
+        try {
+            long tail = 0;
+            while(true) {
+                long head = this.published.get();
+                if(head == tail) {
+                    if(this.closed && this.published.get() == tail) break;
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+
+                while(tail < head) {
+                    int offset = (int) (tail & (this.capacity - 1)) * RECORD_SIZE;
+                    encoder.encode(this.ring.getLong(offset), this.ring.getLong(offset + 8));
+
+                    // Hand slots back to the cpu while draining a large batch
+                    if((++tail & (RELEASE_INTERVAL - 1)) == 0) this.tail.lazySet(tail);
+                }
+                this.tail.lazySet(tail);
+            }
+            encoder.flush();
+            this.outputStream.close();
+        } catch (IOException e) {
+            this.failure = e;
+            try {
+                this.outputStream.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /// Delta encodes the slots of the ring into a buffer that is written in chunks, only used by the writer thread.
+    private static class Encoder {
+        // Longest record is a tag, two 10 byte varints, the opcode and 5 register bytes
+        private static final int MAX_RECORD = 32;
+
+        private final OutputStream outputStream;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+
+        private int pc;
+        private int opcode;
+        private long cycles;
+        private int accumulator;
+        private int registerX;
+        private int registerY;
+        private int status;
+        private int stackPointer;
+
+        Encoder(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        void encode(long first, long second) throws IOException {
+            if(this.position > this.buffer.length - MAX_RECORD) flush();
+
+            if(second == GAP_SLOT) {
+                this.buffer[this.position++] = (byte) GAP;
+                writeVarLong(first);
+                return;
+            }
+
+            int pc = (int) (first >>> 48);
+            long cycles = first & 0xFFFF_FFFF_FFFFL;
+            int opcode = (int) second & 0xFF;
+            int accumulator = (int) (second >>> 8) & 0xFF;
+            int registerX = (int) (second >>> 16) & 0xFF;
+            int registerY = (int) (second >>> 24) & 0xFF;
+            int status = (int) (second >>> 32) & 0xFF;
+            int stackPointer = (int) (second >>> 40) & 0xFFFF;
+
+            int tag = 0;
+            if(accumulator != this.accumulator) tag |= CHANGED_A;
+            if(registerX != this.registerX) tag |= CHANGED_X;
+            if(registerY != this.registerY) tag |= CHANGED_Y;
+            if(status != this.status) tag |= CHANGED_P;
+            if(stackPointer != this.stackPointer) tag |= CHANGED_SP;
+            if(pc == ((this.pc + Cpu.LENGTHS[this.opcode]) & 0xFFFF)) tag |= SEQUENTIAL_PC;
+            if(cycles == this.cycles + Cpu.CYCLES[this.opcode]) tag |= BASE_CYCLES;
+
+            byte[] buffer = this.buffer;
+            buffer[this.position++] = (byte) tag;
+            buffer[this.position++] = (byte) opcode;
+            if((tag & SEQUENTIAL_PC) == 0) writeVarLong(zigzag(pc - this.pc));
+            if((tag & BASE_CYCLES) == 0) writeVarLong(zigzag(cycles - this.cycles));
+            if((tag & CHANGED_A) != 0) buffer[this.position++] = (byte) accumulator;
+            if((tag & CHANGED_X) != 0) buffer[this.position++] = (byte) registerX;
+            if((tag & CHANGED_Y) != 0) buffer[this.position++] = (byte) registerY;
+            if((tag & CHANGED_P) != 0) buffer[this.position++] = (byte) status;
+            if((tag & CHANGED_SP) != 0) {
+                buffer[this.position++] = (byte) stackPointer;
+                buffer[this.position++] = (byte) (stackPointer >>> 8);
+            }
+
+            this.pc = pc;
+            this.opcode = opcode;
+            this.cycles = cycles;
+            this.accumulator = accumulator;
+            this.registerX = registerX;
+            this.registerY = registerY;
+            this.status = status;
+            this.stackPointer = stackPointer;
+        }
+
+        void flush() throws IOException {
+            this.outputStream.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private void writeVarLong(long value) {
+            while((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+    }
+    //endregion
+}
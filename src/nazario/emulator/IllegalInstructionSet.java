@@ -9,7 +9,7 @@ public class IllegalInstructionSet {
     public static final List<Instruction> instructionRegistry = new ArrayList<>();
 
     private static Pair<InstructionInfo, InstructionsFunction>[] instructions;
-    public static Pair<InstructionInfo, InstructionsFunction>[] getInstructions() {
+    public static synchronized Pair<InstructionInfo, InstructionsFunction>[] getInstructions() {
         if(instructions == null) {
             instructions = new Pair[0x100];
 
@@ -24,15 +24,17 @@ public class IllegalInstructionSet {
         return instructions;
     }
 
+    /// Returns a copy of instructionSet with the empty slots filled by the illegal instructions, the given table is not modified so that it can be shared between threads.
     public static Pair<InstructionInfo, InstructionsFunction>[] addIllegalInstructions(Pair<InstructionInfo, InstructionsFunction>[] instructionSet) {
         Pair<InstructionInfo, InstructionsFunction>[] illegalInstructions = getInstructions();
+        Pair<InstructionInfo, InstructionsFunction>[] combinedInstructions = instructionSet.clone();
 
-        for(int i = 0;i<instructionSet.length;i++) {
-            if(instructionSet[i] == null) {
-                instructionSet[i] = illegalInstructions[i];
+        for(int i = 0;i<combinedInstructions.length;i++) {
+            if(combinedInstructions[i] == null) {
+                combinedInstructions[i] = illegalInstructions[i];
             }
         }
-        return instructionSet;
+        return combinedInstructions;
     }
 
     public static Instruction NOP = new IllegalInstruction(new InstructionInfo[]{
@@ -110,7 +112,7 @@ public class IllegalInstructionSet {
     }, (programCounter, memory, registrars, instructionInfo) -> {
         InstructionSet.AND.getFunction().apply(programCounter, memory, registrars, instructionInfo);
 
-        //TODO A AND oper, bit(7) -> C
+        registrars.carryFlag = registrars.negativeFlag;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -125,7 +127,7 @@ public class IllegalInstructionSet {
     }, (programCounter, memory, registrars, instructionInfo) -> {
         InstructionSet.AND.getFunction().apply(programCounter, memory, registrars, instructionInfo);
 
-        //TODO A AND oper, bit(7) -> C
+        registrars.carryFlag = registrars.negativeFlag;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -182,8 +184,15 @@ public class IllegalInstructionSet {
             new InstructionInfo(0xC3, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xD3, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.DEC.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.CMP.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        int result = (Byte.toUnsignedInt(memory.getResolvedValue(address, registrars)) - 1) & 0xFF;
+
+        memory.writeResolvedValue(address, registrars, (byte) result);
+
+        int accumulator = Byte.toUnsignedInt(registrars.accumulator);
+        registrars.carryFlag = accumulator >= result;
+        registrars.zeroFlag = accumulator == result;
+        registrars.negativeFlag = ((accumulator - result) & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -202,8 +211,20 @@ public class IllegalInstructionSet {
             new InstructionInfo(0xE3, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xF3, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.INC.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.SBC.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        int value = (Byte.toUnsignedInt(memory.getResolvedValue(address, registrars)) + 1) & 0xFF;
+
+        memory.writeResolvedValue(address, registrars, (byte) value);
+
+        int a = Byte.toUnsignedInt(registrars.accumulator);
+        int result = a - value - (registrars.carryFlag ? 0 : 1);
+
+        registrars.accumulator = (byte)(result & 0xFF);
+        registrars.carryFlag = (result >= 0);
+        registrars.overflowFlag = (((a ^ result) & (~value ^ result) & 0x80) != 0);
+
+        registrars.zeroFlag = registrars.accumulator == 0;
+        registrars.negativeFlag = (registrars.accumulator & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -235,8 +256,14 @@ public class IllegalInstructionSet {
             new InstructionInfo(0xA3, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xB3, 2, 5, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.LDA.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.LDX.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
+
+        registrars.accumulator = value;
+        registrars.registerX = value;
+
+        registrars.zeroFlag = value == 0;
+        registrars.negativeFlag = (value & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -249,7 +276,7 @@ public class IllegalInstructionSet {
     ///
     /// *https://www.masswerk.at/6502/6502_instruction_set.html#LXA*
     public static Instruction LXA = new IllegalInstruction(new InstructionInfo[]{
-            new InstructionInfo(0xA7, 2, 2, AddressingMode.IMMEDIATE)
+            new InstructionInfo(0xAB, 2, 2, AddressingMode.IMMEDIATE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         InstructionSet.LDA.getFunction().apply(programCounter, memory, registrars, instructionInfo);
         InstructionSet.LDX.getFunction().apply(programCounter, memory, registrars, instructionInfo);
@@ -273,8 +300,18 @@ public class IllegalInstructionSet {
             new InstructionInfo(0x23, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x33, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.ROL.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.AND.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
+
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) << 1) | (registrars.carryFlag ? 1 : 0));
+
+        memory.writeResolvedValue(address, registrars, result);
+
+        registrars.carryFlag = (oldValue & 0x80) != 0;
+        registrars.accumulator &= result;
+
+        registrars.zeroFlag = registrars.accumulator == 0;
+        registrars.negativeFlag = (registrars.accumulator & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -293,8 +330,22 @@ public class IllegalInstructionSet {
             new InstructionInfo(0x63, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x73, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.ROR.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.ADC.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
+
+        int value = (Byte.toUnsignedInt(oldValue) >> 1) | (registrars.carryFlag ? 0x80 : 0);
+
+        memory.writeResolvedValue(address, registrars, (byte) value);
+
+        int a = Byte.toUnsignedInt(registrars.accumulator);
+        int result = a + value + (oldValue & 0x01);
+
+        registrars.carryFlag = (result > 0xFF);
+        registrars.accumulator = (byte)(result & 0xFF);
+        registrars.overflowFlag = (((a ^ result) & (value ^ result) & 0x80) != 0);
+
+        registrars.zeroFlag = registrars.accumulator == 0;
+        registrars.negativeFlag = (registrars.accumulator & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -314,12 +365,7 @@ public class IllegalInstructionSet {
     }, (programCounter, memory, registrars, instructionInfo) -> {
         byte value = (byte)(registrars.accumulator & registrars.registerX);
 
-        memory.writeValueToAddress(
-                programCounter,
-                instructionInfo.mode(),
-                registrars,
-                value
-        );
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, value);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -334,7 +380,8 @@ public class IllegalInstructionSet {
     public static Instruction SBX = new IllegalInstruction(new InstructionInfo[]{
             new InstructionInfo(0xCB, 2, 2, AddressingMode.IMMEDIATE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte operand = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte operand = memory.getResolvedValue(address, registrars);
         byte value = (byte)(registrars.accumulator & registrars.registerX);
 
         registrars.registerX = (byte)((Byte.toUnsignedInt(value) - Byte.toUnsignedInt(operand)) & 0xFF);
@@ -361,7 +408,7 @@ public class IllegalInstructionSet {
     }, (programCounter, memory, registrars, instructionInfo) -> {
         byte value = (byte)(registrars.accumulator & registrars.registerX & memory.getValue(programCounter + (instructionInfo.size() - 1)));
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, value);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, value);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -379,7 +426,7 @@ public class IllegalInstructionSet {
     }, (programCounter, memory, registrars, instructionInfo) -> {
         byte value = (byte)(registrars.registerX & memory.getValue(programCounter + 2));
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, value);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, value);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -393,11 +440,11 @@ public class IllegalInstructionSet {
     ///
     /// *https://www.masswerk.at/6502/6502_instruction_set.html#SHY*
     public static Instruction SHY = new IllegalInstruction(new InstructionInfo[]{
-            new InstructionInfo(0x9F, 3, 5, AddressingMode.ABSOLUTE_X)
+            new InstructionInfo(0x9C, 3, 5, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         byte value = (byte)(registrars.registerY & memory.getValue(programCounter + 2));
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, value);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, value);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -416,8 +463,18 @@ public class IllegalInstructionSet {
             new InstructionInfo(0x03, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x13, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.ASL.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.ORA.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
+
+        byte result = (byte)(Byte.toUnsignedInt(oldValue) << 1);
+
+        memory.writeResolvedValue(address, registrars, result);
+
+        registrars.carryFlag = (oldValue & 0x80) != 0;
+        registrars.accumulator |= result;
+
+        registrars.zeroFlag = registrars.accumulator == 0;
+        registrars.negativeFlag = (registrars.accumulator & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -436,8 +493,18 @@ public class IllegalInstructionSet {
             new InstructionInfo(0x43, 2, 8, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x53, 2, 8, AddressingMode.INDIRECT_Y)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        InstructionSet.LSR.getFunction().apply(programCounter, memory, registrars, instructionInfo);
-        InstructionSet.EOR.getFunction().apply(programCounter, memory, registrars, instructionInfo);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
+
+        byte result = (byte)(Byte.toUnsignedInt(oldValue) >>> 1);
+
+        memory.writeResolvedValue(address, registrars, result);
+
+        registrars.carryFlag = (oldValue & 0x01) != 0;
+        registrars.accumulator ^= result;
+
+        registrars.zeroFlag = registrars.accumulator == 0;
+        registrars.negativeFlag = (registrars.accumulator & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -453,10 +520,13 @@ public class IllegalInstructionSet {
     public static Instruction TAS = new IllegalInstruction(new InstructionInfo[]{
             new InstructionInfo(0x9B, 3, 5, AddressingMode.ABSOLUTE_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
+        byte value = (byte)(registrars.accumulator & registrars.registerX);
 
-        //Don't wanna implement at the moment
-        throw new RuntimeException("TAS illegal instruction is not implemented!");
+        // Same as InstructionSet#TXS, the stack pointer value is the byte the stack pointer points at
+        memory.writeToStackPointer(value);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, (byte)(value & memory.getValue(programCounter + 2)));
 
+        return (short)(programCounter + instructionInfo.size());
     });
 
     /// **USBC (SBC)**
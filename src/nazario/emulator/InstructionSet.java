@@ -12,7 +12,7 @@ public class InstructionSet {
     public static final List<Instruction> instructionRegistry = new ArrayList<>();
 
     private static Pair<InstructionInfo, InstructionsFunction>[] instructions;
-    public static Pair<InstructionInfo, InstructionsFunction>[] getInstructions() {
+    public static synchronized Pair<InstructionInfo, InstructionsFunction>[] getInstructions() {
         if(instructions == null) {
             instructions = new Pair[0x100];
 
@@ -43,7 +43,8 @@ public class InstructionSet {
             new InstructionInfo(0xA1, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xB1, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.accumulator = value;
 
@@ -67,7 +68,7 @@ public class InstructionSet {
             new InstructionInfo(0x81, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x91, 2, 6, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, registrars.accumulator);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, registrars.accumulator);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -84,7 +85,8 @@ public class InstructionSet {
             new InstructionInfo(0xAE, 3, 4, AddressingMode.ABSOLUTE),
             new InstructionInfo(0xBE, 3, 4, AddressingMode.ABSOLUTE_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.registerX = value;
 
@@ -104,7 +106,7 @@ public class InstructionSet {
             new InstructionInfo(0x96, 2, 4, AddressingMode.ZERO_PAGE_Y),
             new InstructionInfo(0x8E, 3, 4, AddressingMode.ABSOLUTE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, registrars.registerX);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, registrars.registerX);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -121,7 +123,8 @@ public class InstructionSet {
             new InstructionInfo(0xAC, 3, 4, AddressingMode.ABSOLUTE),
             new InstructionInfo(0xBC, 3, 4, AddressingMode.ABSOLUTE_X),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.registerY = value;
 
@@ -141,7 +144,7 @@ public class InstructionSet {
             new InstructionInfo(0x94, 2, 4, AddressingMode.ZERO_PAGE_Y),
             new InstructionInfo(0x8C, 3, 4, AddressingMode.ABSOLUTE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, registrars.registerY);
+        memory.writeResolvedValue(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars), registrars, registrars.registerY);
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -319,7 +322,8 @@ public class InstructionSet {
             new InstructionInfo(0x21, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x31, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.accumulator &= value;
 
@@ -344,7 +348,8 @@ public class InstructionSet {
             new InstructionInfo(0x41, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x51, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.accumulator ^= value;
 
@@ -369,7 +374,8 @@ public class InstructionSet {
             new InstructionInfo(0x01, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x11, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         registrars.accumulator |= value;
 
@@ -388,7 +394,8 @@ public class InstructionSet {
             new InstructionInfo(0x24, 2, 3, AddressingMode.ZERO_PAGE),
             new InstructionInfo(0x2C, 3, 4, AddressingMode.ABSOLUTE),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         int targetResult = Byte.toUnsignedInt(registrars.accumulator) & Byte.toUnsignedInt(value);
 
@@ -417,7 +424,8 @@ public class InstructionSet {
             new InstructionInfo(0x61, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0x71, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         int carryIn = registrars.carryFlag ? 1 : 0;
         int a = Byte.toUnsignedInt(registrars.accumulator);
@@ -454,7 +462,8 @@ public class InstructionSet {
             new InstructionInfo(0xE1, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xF1, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        byte value = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte value = memory.getResolvedValue(address, registrars);
 
         int carryIn = registrars.carryFlag ? 0 : 1; // Invert carry for subtraction
         int a = Byte.toUnsignedInt(registrars.accumulator);
@@ -494,7 +503,8 @@ public class InstructionSet {
             new InstructionInfo(0xC1, 2, 6, AddressingMode.INDIRECT_X),
             new InstructionInfo(0xD1, 2, 5, AddressingMode.INDIRECT_Y),
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        int value = Byte.toUnsignedInt(memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars));
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        int value = Byte.toUnsignedInt(memory.getResolvedValue(address, registrars));
         int accumulator = Byte.toUnsignedInt(registrars.accumulator);
 
         int result = accumulator - value;
@@ -518,7 +528,8 @@ public class InstructionSet {
             new InstructionInfo(0xE4, 2, 3, AddressingMode.ZERO_PAGE),
             new InstructionInfo(0xEC, 3, 4, AddressingMode.ABSOLUTE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        int value = Byte.toUnsignedInt(memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars));
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        int value = Byte.toUnsignedInt(memory.getResolvedValue(address, registrars));
         int registerX = Byte.toUnsignedInt(registrars.registerX);
 
         int result = registerX - value;
@@ -542,7 +553,8 @@ public class InstructionSet {
             new InstructionInfo(0xC4, 2, 3, AddressingMode.ZERO_PAGE),
             new InstructionInfo(0xCC, 3, 4, AddressingMode.ABSOLUTE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        int value = Byte.toUnsignedInt(memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars));
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        int value = Byte.toUnsignedInt(memory.getResolvedValue(address, registrars));
         int registerY = Byte.toUnsignedInt(registrars.registerY);
 
         int result = registerY - value;
@@ -558,9 +570,6 @@ public class InstructionSet {
     //endregion
 
     //region * Increments & Decrements *
-    private static byte incdec$oldValue;
-    private static byte incdec$result;
-
     ///**INC - Increment Memory**
     ///
     /// Adds one to the value held at a specified memory location setting the zero and negative flags as appropriate.
@@ -572,14 +581,15 @@ public class InstructionSet {
             new InstructionInfo(0xEE, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0xFE, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) + 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) + 1) & 0xFF);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, incdec$result);
+        memory.writeResolvedValue(address, registrars, result);
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -591,14 +601,14 @@ public class InstructionSet {
     public static Instruction INX = new Instruction(new InstructionInfo[]{
             new InstructionInfo(0xE8, 1, 2, AddressingMode.IMPLIED)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = registrars.registerX;
+        byte oldValue = registrars.registerX;
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) + 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) + 1) & 0xFF);
 
-        registrars.registerX = incdec$result;
+        registrars.registerX = result;
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -611,14 +621,14 @@ public class InstructionSet {
     public static Instruction INY = new Instruction(new InstructionInfo[]{
             new InstructionInfo(0xC8, 1, 2, AddressingMode.IMPLIED)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = registrars.registerY;
+        byte oldValue = registrars.registerY;
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) + 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) + 1) & 0xFF);
 
-        registrars.registerY = incdec$result;
+        registrars.registerY = result;
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -634,14 +644,15 @@ public class InstructionSet {
             new InstructionInfo(0xCE, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0xDE, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) - 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) - 1) & 0xFF);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, incdec$result);
+        memory.writeResolvedValue(address, registrars, result);
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -654,14 +665,14 @@ public class InstructionSet {
     public static Instruction DEX = new Instruction(new InstructionInfo[]{
             new InstructionInfo(0xCA, 1, 2, AddressingMode.IMPLIED)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = registrars.registerX;
+        byte oldValue = registrars.registerX;
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) - 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) - 1) & 0xFF);
 
-        registrars.registerX = incdec$result;
+        registrars.registerX = result;
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -674,23 +685,20 @@ public class InstructionSet {
     public static Instruction DEY = new Instruction(new InstructionInfo[]{
             new InstructionInfo(0x88, 1, 2, AddressingMode.IMPLIED)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        incdec$oldValue = registrars.registerY;
+        byte oldValue = registrars.registerY;
 
-        incdec$result = (byte) ((Byte.toUnsignedInt(incdec$oldValue) - 1) & 0xFF);
+        byte result = (byte) ((Byte.toUnsignedInt(oldValue) - 1) & 0xFF);
 
-        registrars.registerY = incdec$result;
+        registrars.registerY = result;
 
-        registrars.zeroFlag = incdec$result == 0;
-        registrars.negativeFlag = (incdec$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
     //endregion
 
     //region * Shifts *
-    private static byte shift$oldValue;
-    private static byte shift$result;
-
     /// **ASL - Arithmetic Shift Left**
     ///
     /// This operation shifts all the bits of the accumulator or memory contents one bit left. Bit 0 is set to 0 and bit 7 is placed in the carry flag. The effect of this operation is to multiply the memory contents by 2 (ignoring 2's complement considerations), setting the carry if the result will not fit in 8 bits.
@@ -703,15 +711,16 @@ public class InstructionSet {
             new InstructionInfo(0x0E, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0x1E, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        shift$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        shift$result = (byte)((Byte.toUnsignedInt(shift$oldValue) << 1) & 0xFF);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) << 1) & 0xFF);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, shift$result);
+        memory.writeResolvedValue(address, registrars, result);
 
         registrars.zeroFlag = registrars.accumulator == 0;
-        registrars.carryFlag = (shift$oldValue & 0x80) != 0;
-        registrars.negativeFlag = (shift$result & 0x80) != 0;
+        registrars.carryFlag = (oldValue & 0x80) != 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -728,15 +737,16 @@ public class InstructionSet {
             new InstructionInfo(0x4E, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0x5E, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        shift$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        shift$result = (byte)((Byte.toUnsignedInt(shift$oldValue) >>> 1) & 0xFF);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) >>> 1) & 0xFF);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, shift$result);
+        memory.writeResolvedValue(address, registrars, result);
 
-        registrars.zeroFlag = shift$result == 0;
-        registrars.carryFlag = (shift$oldValue & 0x01) != 0;
-        registrars.negativeFlag = (shift$result & 0x80) != 0;
+        registrars.zeroFlag = result == 0;
+        registrars.carryFlag = (oldValue & 0x01) != 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -753,16 +763,17 @@ public class InstructionSet {
             new InstructionInfo(0x2E, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0x3E, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        shift$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        shift$result = (byte)((Byte.toUnsignedInt(shift$oldValue) << 1) & 0xFF);
-        shift$result |= (byte)(registrars.carryFlag ? 1 : 0);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) << 1) & 0xFF);
+        result |= (byte)(registrars.carryFlag ? 1 : 0);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, shift$result);
+        memory.writeResolvedValue(address, registrars, result);
 
         registrars.zeroFlag = registrars.accumulator == 0;
-        registrars.carryFlag = (shift$oldValue & 0x80) != 0;
-        registrars.negativeFlag = (shift$result & 0x80) != 0;
+        registrars.carryFlag = (oldValue & 0x80) != 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -779,16 +790,17 @@ public class InstructionSet {
             new InstructionInfo(0x6E, 3, 6, AddressingMode.ABSOLUTE),
             new InstructionInfo(0x7E, 3, 7, AddressingMode.ABSOLUTE_X)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        shift$oldValue = memory.getValueFromAddress(programCounter, instructionInfo.mode(), registrars);
+        int address = memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
+        byte oldValue = memory.getResolvedValue(address, registrars);
 
-        shift$result = (byte)((Byte.toUnsignedInt(shift$oldValue) >> 1) & 0xFF);
-        shift$result |= (byte)(registrars.carryFlag ? 0x80 : 0);
+        byte result = (byte)((Byte.toUnsignedInt(oldValue) >> 1) & 0xFF);
+        result |= (byte)(registrars.carryFlag ? 0x80 : 0);
 
-        memory.writeValueToAddress(programCounter, instructionInfo.mode(), registrars, shift$result);
+        memory.writeResolvedValue(address, registrars, result);
 
         registrars.zeroFlag = registrars.accumulator == 0;
-        registrars.carryFlag = (shift$oldValue & 0x1) != 0;
-        registrars.negativeFlag = (shift$result & 0x80) != 0;
+        registrars.carryFlag = (oldValue & 0x1) != 0;
+        registrars.negativeFlag = (result & 0x80) != 0;
 
         return (short)(programCounter + instructionInfo.size());
     });
@@ -807,7 +819,7 @@ public class InstructionSet {
             new InstructionInfo(0x4C, 3, 3, AddressingMode.ABSOLUTE),
             new InstructionInfo(0x6C, 3, 5, AddressingMode.INDIRECT)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        short address = memory.getAddress(programCounter, instructionInfo.mode(), registrars);
+        short address = (short) memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
 
         if(!Constants.JMP_INDIRECT_BUG || instructionInfo.mode() == AddressingMode.ABSOLUTE) return address;
 
@@ -829,7 +841,7 @@ public class InstructionSet {
     public static Instruction JSR = new Instruction(new InstructionInfo[]{
             new InstructionInfo(0x20, 3, 6, AddressingMode.ABSOLUTE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
-        short targetAddress = memory.getAddress(programCounter, instructionInfo.mode(), registrars);
+        short targetAddress = (short) memory.resolveAddress(programCounter, instructionInfo.mode(), registrars);
         short returnAddress = (short)((programCounter + instructionInfo.size() - 1) & 0xFFFF);
 
         memory.pushToStack((byte)(returnAddress >> 8));
@@ -863,7 +875,7 @@ public class InstructionSet {
             new InstructionInfo(0x90, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(registrars.carryFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
     /// **BCS - Branch if Carry Set**
     ///
@@ -874,7 +886,7 @@ public class InstructionSet {
             new InstructionInfo(0xB0, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(!registrars.carryFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BNE - Branch if Not Equal**
@@ -886,7 +898,7 @@ public class InstructionSet {
             new InstructionInfo(0xD0, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(registrars.zeroFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BEQ - Branch if Equal**
@@ -898,7 +910,7 @@ public class InstructionSet {
             new InstructionInfo(0xF0, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(!registrars.zeroFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BPL - Branch if Positive**
@@ -910,7 +922,7 @@ public class InstructionSet {
             new InstructionInfo(0x10, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(registrars.negativeFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BMI - Branch if Minus**
@@ -922,7 +934,7 @@ public class InstructionSet {
             new InstructionInfo(0x30, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(!registrars.negativeFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BVC - Branch if Overflow Clear**
@@ -934,7 +946,7 @@ public class InstructionSet {
             new InstructionInfo(0x50, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(registrars.overflowFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     /// **BVS - Branch if Overflow Set**
@@ -946,7 +958,7 @@ public class InstructionSet {
             new InstructionInfo(0x70, 2, 2, AddressingMode.RELATIVE)
     }, (programCounter, memory, registrars, instructionInfo) -> {
         if(!registrars.overflowFlag) return (short)(programCounter + instructionInfo.size());
-        return (short)(Short.toUnsignedInt(memory.getAddress(programCounter, instructionInfo.mode(), registrars)) + instructionInfo.size());
+        return (short)(memory.resolveAddress(programCounter, instructionInfo.mode(), registrars) + instructionInfo.size());
     });
 
     //endregion
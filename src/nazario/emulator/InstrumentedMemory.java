@@ -0,0 +1,191 @@
+package nazario.emulator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/// {@link Memory} that counts the reads, writes and instruction fetches of every page, and optionally of every address.
+///
+/// Only this subclass counts anything, a cpu on a plain {@link Memory} runs exactly the code it ran before.
+/// Fetches are counted by {@link #fetchValue(int)}, which the {@link Cpu} only calls when it decodes an instruction that is not in its {@link DecodeCache}, disable the cache to count every fetch.
+/// Bulk copies of {@link #writeBlock(int, byte[], int, int)} into unmapped memory are not counted, neither is anything that writes into {@link #getMemory()} directly.
+public class InstrumentedMemory extends Memory {
+    public static final int MAGIC = 0x3635484D; // "65HM"
+    public static final int VERSION = 1;
+
+    public static final int READS = 0;
+    public static final int WRITES = 1;
+    public static final int FETCHES = 2;
+
+    private static final String SHADES = " .:-=+*#%@";
+
+    protected final long[][] pageCounts = new long[3][0x100];
+    /// Counts per address, or null if only pages are counted.
+    protected final long[][] addressCounts;
+
+    public InstrumentedMemory(boolean perAddress) {
+        this.addressCounts = perAddress ? new long[3][0x10000] : null;
+    }
+
+    public InstrumentedMemory() {
+        this(false);
+    }
+
+    private void count(int kind, int index) {
+        this.pageCounts[kind][index >>> 8]++;
+        if(this.addressCounts != null) this.addressCounts[kind][index]++;
+    }
+
+    @Override
+    public byte getValue(int index) {
+        index &= 0xFFFF;
+        count(READS, index);
+        return super.getValue(index);
+    }
+
+    @Override
+    public byte fetchValue(int index) {
+        index &= 0xFFFF;
+        count(FETCHES, index);
+        return super.getValue(index);
+    }
+
+    @Override
+    public void writeValue(int index, byte value) {
+        index &= 0xFFFF;
+        count(WRITES, index);
+        super.writeValue(index, value);
+    }
+
+    // Mapped memory pushes and pulls through writeValue and getValue, which count themselves
+    @Override
+    public void pushToStack(byte value) {
+        if(!this.mapped) count(WRITES, this.stackPointer & 0xFFFF);
+        super.pushToStack(value);
+    }
+
+    @Override
+    public byte pullFromStack() {
+        if(!this.mapped) count(READS, this.stackPointer & 0xFFFF);
+        return super.pullFromStack();
+    }
+
+    /// Returns the {@link #READS}, {@link #WRITES} or {@link #FETCHES} of page.
+    public long getPageCount(int kind, int page) {
+        return this.pageCounts[kind][page];
+    }
+
+    /// Returns the {@link #READS}, {@link #WRITES} or {@link #FETCHES} of address, which are only counted if this memory was created to count per address.
+    public long getAddressCount(int kind, int address) {
+        if(this.addressCounts == null) throw new IllegalStateException("Only pages are counted");
+        return this.addressCounts[kind][address];
+    }
+
+    public boolean isCountingAddresses() {
+        return this.addressCounts != null;
+    }
+
+    /// Clears every count, e.g. after loading a program.
+    public void resetCounts() {
+        for(int kind = 0;kind<3;kind++) {
+            Arrays.fill(this.pageCounts[kind], 0);
+            if(this.addressCounts != null) Arrays.fill(this.addressCounts[kind], 0);
+        }
+    }
+
+    //region * Output *
+    /// Writes the counts gzip compressed: {@link #MAGIC}, {@link #VERSION}, a byte that is 1 if addresses are counted, the reads, writes and fetches of every page and then those of every address if they are counted, all as longs.
+    public void writeBinary(OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(outputStream, 1 << 16);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(this.addressCounts != null ? 1 : 0);
+        for(long[] counts : this.pageCounts) for(long count : counts) output.writeLong(count);
+        if(this.addressCounts != null) for(long[] counts : this.addressCounts) for(long count : counts) output.writeLong(count);
+        output.flush();
+        gzip.finish();
+    }
+
+    /// Writes `page,reads,writes,fetches` for every page, or `address,reads,writes,fetches` for every address if they are counted, leaving out rows without any access.
+    public void writeCsv(Writer writer) throws IOException {
+        long[][] counts = this.addressCounts != null ? this.addressCounts : this.pageCounts;
+        String format = this.addressCounts != null ? "%04X,%d,%d,%d\n" : "%02X,%d,%d,%d\n";
+
+        writer.write(this.addressCounts != null ? "address,reads,writes,fetches\n" : "page,reads,writes,fetches\n");
+        for(int i = 0;i<counts[READS].length;i++) {
+            if(counts[READS][i] == 0 && counts[WRITES][i] == 0 && counts[FETCHES][i] == 0) continue;
+            writer.write(String.format(format, i, counts[READS][i], counts[WRITES][i], counts[FETCHES][i]));
+        }
+        writer.flush();
+    }
+
+    /// Draws the accesses of every page as a 16 by 16 grid on a logarithmic scale, followed by the hottest pages and the pages that are both written and fetched from, which hold self-modifying code.
+    public String getReport() {
+        long[] totals = new long[0x100];
+        long max = 0;
+        for(int page = 0;page<0x100;page++) {
+            totals[page] = this.pageCounts[READS][page] + this.pageCounts[WRITES][page] + this.pageCounts[FETCHES][page];
+            max = Math.max(max, totals[page]);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Accesses per page, '%c' is none and '%c' is %d%n", SHADES.charAt(0), SHADES.charAt(SHADES.length() - 1), max));
+        builder.append("    0123456789ABCDEF\n");
+        for(int row = 0;row<0x10;row++) {
+            builder.append(String.format("%X_  ", row));
+            for(int column = 0;column<0x10;column++) builder.append(shade(totals[row << 4 | column], max));
+            builder.append('\n');
+        }
+
+        List<Integer> pages = new ArrayList<>();
+        for(int page = 0;page<0x100;page++) if(totals[page] != 0) pages.add(page);
+        pages.sort((a, b) -> Long.compare(totals[b], totals[a]));
+
+        builder.append(String.format("%n%-6s %14s %14s %14s%n", "Page", "reads", "writes", "fetches"));
+        for(int page : pages.subList(0, Math.min(16, pages.size()))) appendPage(builder, page);
+
+        builder.append(String.format("%nWritten and fetched%n"));
+        for(int page = 0;page<0x100;page++) {
+            if(this.pageCounts[WRITES][page] == 0 || this.pageCounts[FETCHES][page] == 0) continue;
+            appendPage(builder, page);
+            if(this.addressCounts == null) continue;
+
+            for(int address = page << 8;address<(page + 1) << 8;address++) {
+                if(this.addressCounts[WRITES][address] != 0 && this.addressCounts[FETCHES][address] != 0) {
+                    builder.append(String.format("  $%04X %12d %14d %14d%n", address, this.addressCounts[READS][address], this.addressCounts[WRITES][address], this.addressCounts[FETCHES][address]));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private void appendPage(StringBuilder builder, int page) {
+        builder.append(String.format("$%02X__  %14d %14d %14d%n", page, this.pageCounts[READS][page], this.pageCounts[WRITES][page], this.pageCounts[FETCHES][page]));
+    }
+
+    private static char shade(long count, long max) {
+        if(count == 0) return SHADES.charAt(0);
+        int steps = SHADES.length() - 1;
+        return SHADES.charAt(1 + (int) ((steps - 1) * Math.log1p(count) / Math.log1p(max)));
+    }
+
+    /// Writes the binary counts to path, or a CSV if its name ends with `.csv`.
+    public void write(Path path) throws IOException {
+        if(path.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            try(Writer writer = Files.newBufferedWriter(path)) {
+                writeCsv(writer);
+            }
+            return;
+        }
+
+        try(OutputStream outputStream = Files.newOutputStream(path)) {
+            writeBinary(outputStream);
+        }
+    }
+    //endregion
+}
@@ -1,29 +1,92 @@
 package nazario.emulator;
 
+import nazario.emulator.util.LoadedProgram;
+
 import java.io.*;
+import java.nio.file.Path;
 
 public class Loader {
     public static void loadIntoMemory(String filePath, int startIndex, Memory memory) {
         try(FileInputStream fileInputStream = new FileInputStream(filePath); DataInputStream dataInputStream = new DataInputStream(fileInputStream)) {
             byte[] bytes = dataInputStream.readAllBytes();
-            for(int i = 0;i<bytes.length;i++) {
-                memory.writeValue(i + startIndex, bytes[i]);
-            }
+            memory.writeBlock(startIndex, bytes, 0, bytes.length);
+        }catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /// Loads a program in any {@link nazario.emulator.util.ProgramFormat ProgramFormat} and sets the reset vector, see {@link ProgramLoader}. Returns null if the file can not be loaded.
+    public static LoadedProgram loadProgram(String filePath, int loadAddress, Memory memory) {
+        try {
+            return ProgramLoader.load(Path.of(filePath), loadAddress, memory);
         }catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
+    /// Maps a 64 KiB memory image instead of copying it, see {@link MappedMemory}. Returns null if the file can not be mapped.
+    public static MappedMemory mapMemory(String filePath) {
+        try {
+            return MappedMemory.open(Path.of(filePath));
+        }catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /// A {@link MappedMemory} is written straight from its mapping, or only forced to disk if filePath is the image it maps.
+    ///
+    /// A full dump is a checkpoint, later {@link #dumpMemoryDelta(String, Memory)} calls only write the pages changed after it.
     public static void dumpMemory(String filePath, Memory memory) {
+        EmulatorEvents.MemoryDump event = new EmulatorEvents.MemoryDump();
+        event.begin();
 
         File file = new File(filePath);
         file.getParentFile().mkdirs(); // create directories if missing
+        if(memory instanceof MappedMemory mappedMemory) {
+            try {
+                mappedMemory.force();
+                if(!mappedMemory.isMapping(file.toPath())) mappedMemory.writeTo(file.toPath());
+                mappedMemory.clearDirtyPages();
+            }catch(Exception e) {
+                e.printStackTrace();
+            }
+            commit(event, file, false);
+            return;
+        }
+
         try(FileOutputStream fileOutputStream = new FileOutputStream(file); DataOutputStream dataOutputStream = new DataOutputStream(fileOutputStream)) {
-            byte[] bytes = memory.getMemory();
+            byte[] bytes = memory.copyMemory();
             dataOutputStream.write(bytes, 0, bytes.length);
             dataOutputStream.flush();
+            memory.clearDirtyPages();
+        }catch(Exception e) {
+            e.printStackTrace();
+        }
+        commit(event, file, false);
+    }
+
+    /// Writes only the pages changed since the last full or incremental dump, see {@link MemoryDelta}.
+    public static void dumpMemoryDelta(String filePath, Memory memory) {
+        EmulatorEvents.MemoryDump event = new EmulatorEvents.MemoryDump();
+        event.begin();
+
+        File file = new File(filePath);
+        file.getParentFile().mkdirs(); // create directories if missing
+        try(FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+            MemoryDelta.write(fileOutputStream, memory);
         }catch(Exception e) {
             e.printStackTrace();
         }
+        commit(event, file, true);
+    }
+
+    private static void commit(EmulatorEvents.MemoryDump event, File file, boolean incremental) {
+        if(!event.shouldCommit()) return;
+        event.path = file.getPath();
+        event.incremental = incremental;
+        event.bytes = file.length();
+        event.commit();
     }
 }
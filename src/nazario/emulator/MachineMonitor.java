@@ -0,0 +1,154 @@
+package nazario.emulator;
+
+import nazario.emulator.util.MachineMXBean;
+import nazario.emulator.util.StopReason;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/// {@link MachineMXBean} of a {@link Cpu}, registered as `nazario.emulator:type=Machine,id=<machine id>`.
+///
+/// The cpu thread stays the only writer of its counters and never waits for a reader, the monitor reads them with opaque loads and keeps its own ring of once a second samples for the rates.
+public class MachineMonitor implements MachineMXBean {
+    private static final int WINDOW = 60;
+    // Opaque access to the counters of the cpu thread, also sampled by EmulatorEvents
+    static final VarHandle INSTRUCTION_COUNT;
+    static final VarHandle CYCLES;
+    static final VarHandle PROGRAM_COUNTER;
+
+    private static final Set<MachineMonitor> MONITORS = ConcurrentHashMap.newKeySet();
+    private static ScheduledExecutorService sampler;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            INSTRUCTION_COUNT = lookup.findVarHandle(Cpu.class, "instructionCount", long.class);
+            CYCLES = lookup.findVarHandle(Cpu.class, "cycles", long.class);
+            PROGRAM_COUNTER = lookup.findVarHandle(Cpu.class, "programCounter", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected final Cpu cpu;
+    protected final ObjectName name;
+
+    // Ring of the last WINDOW + 1 samples, only written by the sampler thread
+    private final long[] sampleTimes = new long[WINDOW + 1];
+    private final long[] sampleInstructions = new long[WINDOW + 1];
+    private final long[] sampleCycles = new long[WINDOW + 1];
+    private long samples;
+
+    protected MachineMonitor(Cpu cpu) throws JMException {
+        this.cpu = cpu;
+        this.name = new ObjectName("nazario.emulator:type=Machine,id=" + cpu.getMachineId());
+        sample();
+    }
+
+    /// Registers a monitor for cpu with the platform MBean server and starts sampling it.
+    public static MachineMonitor register(Cpu cpu) throws JMException {
+        MachineMonitor monitor = new MachineMonitor(cpu);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, monitor.name);
+        synchronized(MachineMonitor.class) {
+            if(sampler == null) {
+                sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Machine monitor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                sampler.scheduleAtFixedRate(() -> MONITORS.forEach(MachineMonitor::sample), 1, 1, TimeUnit.SECONDS);
+            }
+        }
+        MONITORS.add(monitor);
+        return monitor;
+    }
+
+    /// Stops sampling and removes the MBean.
+    public void unregister() throws JMException {
+        MONITORS.remove(this);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if(server.isRegistered(this.name)) server.unregisterMBean(this.name);
+    }
+
+    public ObjectName getName() {
+        return this.name;
+    }
+
+    private synchronized void sample() {
+        int slot = (int) (this.samples++ % this.sampleTimes.length);
+        this.sampleTimes[slot] = System.nanoTime();
+        this.sampleInstructions[slot] = getInstructionCount();
+        this.sampleCycles[slot] = getCycles();
+    }
+
+    /// Rate of counter between the latest sample and the one seconds before it, or the oldest one kept if there are fewer.
+    private synchronized double rate(long[] counter, int seconds) {
+        if(this.samples < 2) return 0;
+        int length = this.sampleTimes.length;
+        int latest = (int) ((this.samples - 1) % length);
+        int back = (int) Math.min(seconds, this.samples - 1);
+        int earlier = (latest - back + length) % length;
+
+        long nanos = this.sampleTimes[latest] - this.sampleTimes[earlier];
+        return nanos == 0 ? 0 : (counter[latest] - counter[earlier]) * 1e9 / nanos;
+    }
+
+    @Override
+    public int getMachineId() {
+        return this.cpu.getMachineId();
+    }
+
+    @Override
+    public long getInstructionCount() {
+        return (long) INSTRUCTION_COUNT.getOpaque(this.cpu);
+    }
+
+    @Override
+    public long getCycles() {
+        return (long) CYCLES.getOpaque(this.cpu);
+    }
+
+    @Override
+    public int getProgramCounter() {
+        return (int) PROGRAM_COUNTER.getOpaque(this.cpu);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.cpu.isRunning();
+    }
+
+    @Override
+    public String getStopReason() {
+        return StopReason.getName(this.cpu.getStopReason());
+    }
+
+    @Override
+    public double getInstructionsPerSecond1s() {
+        return rate(this.sampleInstructions, 1);
+    }
+
+    @Override
+    public double getInstructionsPerSecond10s() {
+        return rate(this.sampleInstructions, 10);
+    }
+
+    @Override
+    public double getInstructionsPerSecond60s() {
+        return rate(this.sampleInstructions, WINDOW);
+    }
+
+    @Override
+    public double getEffectiveMHz() {
+        return rate(this.sampleCycles, 10) / 1e6;
+    }
+}
@@ -0,0 +1,104 @@
+package nazario.emulator;
+
+import nazario.emulator.util.RunStatistics;
+
+import javax.management.JMException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/// Runs many independent machines in parallel on a fixed thread pool.
+///
+/// Every machine is a {@link Cpu} with its own {@link Memory} and {@link Registrars}; the instruction tables are only read, so the machines share no mutable state and throughput scales with the number of threads.
+public class MachineRunner {
+    protected final int threads;
+
+    public MachineRunner(int threads) {
+        this.threads = threads;
+    }
+
+    public MachineRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /// Runs every machine until it stops and returns the aggregate instruction and cycle counts and the wall clock time.
+    public RunStatistics run(List<Cpu> machines) {
+        long instructionsBefore = 0;
+        long cyclesBefore = 0;
+        for(Cpu cpu : machines) {
+            instructionsBefore += cpu.getInstructionCount();
+            cyclesBefore += cpu.getCycles();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(machines.size());
+            for(Cpu cpu : machines) futures.add(executor.submit(() -> cpu.run()));
+            for(Future<?> future : futures) future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Machine run failed", e);
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long instructions = -instructionsBefore;
+        long cycles = -cyclesBefore;
+        for(Cpu cpu : machines) {
+            instructions += cpu.getInstructionCount();
+            cycles += cpu.getCycles();
+        }
+
+        return new RunStatistics(machines.size(), instructions, cycles, elapsed);
+    }
+
+    /// Usage: `<program> <load address> <machines> [threads] [--illegal-opcodes] [--block-compiler] [--super-instructions] [--profile] [--jmx]`
+    ///
+    /// Loads the program into every machine and runs them all in parallel from its start address, the load address is only used for raw binaries.
+    public static void main(String[] args) throws JMException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean illegalOpcodes = arguments.remove("--illegal-opcodes");
+        boolean blockCompiler = arguments.remove("--block-compiler");
+        boolean superInstructions = arguments.remove("--super-instructions");
+        boolean profile = arguments.remove("--profile");
+        boolean jmx = arguments.remove("--jmx");
+
+        String filePath = arguments.get(0);
+        int loadAddress = Integer.decode(arguments.get(1));
+        int machineCount = Integer.parseInt(arguments.get(2));
+        MachineRunner runner = arguments.size() > 3 ? new MachineRunner(Integer.parseInt(arguments.get(3))) : new MachineRunner();
+
+        List<Cpu> machines = new ArrayList<>(machineCount);
+        for(int i = 0;i<machineCount;i++) {
+            Memory memory = new Memory();
+            if(Loader.loadProgram(filePath, loadAddress, memory) == null) return;
+
+            Cpu cpu = new Cpu(memory, new Registrars(), illegalOpcodes);
+            cpu.setBlockCompilerEnabled(blockCompiler);
+            cpu.setSuperInstructionsEnabled(superInstructions);
+            cpu.reset();
+            if(profile) cpu.setOpcodeProfiler(new OpcodeProfiler());
+            if(jmx) MachineMonitor.register(cpu);
+            machines.add(cpu);
+        }
+
+        System.out.println(runner.run(machines));
+
+        if(superInstructions) {
+            SuperInstructions fusions = new SuperInstructions();
+            for(Cpu cpu : machines) fusions.add(cpu.getSuperInstructions());
+            System.out.print(fusions.getReport());
+        }
+
+        if(profile) {
+            OpcodeProfiler profiler = new OpcodeProfiler();
+            for(Cpu cpu : machines) profiler.add(cpu.getOpcodeProfiler());
+            System.out.print(profiler.getReport());
+        }
+    }
+}
@@ -1,46 +1,102 @@
 package nazario.emulator;
 
-import nazario.emulator.util.InstructionInfo;
-import nazario.emulator.util.InstructionsFunction;
-import nazario.emulator.util.Pair;
+import nazario.emulator.util.LoadedProgram;
+import nazario.emulator.util.StopReason;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
-        Pair<InstructionInfo, InstructionsFunction>[] instructions = InstructionSet.getInstructions();
-        if(Arrays.stream(args).toList().contains("--illegal-opcodes")) IllegalInstructionSet.addIllegalInstructions(instructions);
+    /// Usage: `[program] [load address] [--illegal-opcodes] [--block-compiler] [--super-instructions] [--profile] [--trace file] [--call-stacks file] [--symbols file] [--heatmap file] [--heatmap-addresses] [--jmx]`
+    ///
+    /// The program can be in any {@link nazario.emulator.util.ProgramFormat ProgramFormat}, the load address is only used for raw binaries.
+    /// With `--trace` every instruction is recorded by an {@link ExecutionTracer}, see {@link TraceReader} to convert the trace to text.
+    /// With `--call-stacks` a {@link CallStackProfiler} reports the cycles per subroutine and writes collapsed stacks for flame graphs to the file, named after the labels of the `--symbols` file.
+    /// With `--heatmap` the program runs on an {@link InstrumentedMemory} without the decode cache and so without `--block-compiler`, the accesses per page, or per address with `--heatmap-addresses`, are reported and written to the file, as CSV if it ends with `.csv`.
+    /// With `--jmx` the machine is watched through a {@link MachineMonitor} while it runs.
+    public static void main(String[] args) throws IOException, JMException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean illegalOpcodes = arguments.remove("--illegal-opcodes");
+        boolean blockCompiler = arguments.remove("--block-compiler");
+        boolean superInstructions = arguments.remove("--super-instructions");
+        boolean profile = arguments.remove("--profile");
+        boolean jmx = arguments.remove("--jmx");
 
-        Memory memory = new Memory();
+        String tracePath = option(arguments, "--trace", null);
+        String callStacksPath = option(arguments, "--call-stacks", null);
+        String symbolsPath = option(arguments, "--symbols", null);
+        String heatmapPath = option(arguments, "--heatmap", null);
+        boolean heatmapAddresses = arguments.remove("--heatmap-addresses");
+        // The heatmap runs without the decode cache, which compiled blocks depend on
+        if(heatmapPath != null && blockCompiler) {
+            System.err.println("--heatmap can not be combined with --block-compiler");
+            return;
+        }
+
+        String filePath = arguments.size() > 0 ? arguments.get(0) : "G:\\Projects\\6502 Emulator\\resources\\test.bin";
+        int loadAddress = arguments.size() > 1 ? Integer.decode(arguments.get(1)) : 0x0600;
+
+        Memory memory = heatmapPath != null ? new InstrumentedMemory(heatmapAddresses) : new Memory();
         Registrars registrars = new Registrars();
 
-        Loader.loadIntoMemory("G:\\Projects\\6502 Emulator\\resources\\test.bin", 0x0600, memory);
-        byte[] memoryArray = memory.getMemory();
-
-        for(int programCounter = 0x0600; programCounter < memoryArray.length; programCounter++) {
-            try{
-                byte value = memoryArray[programCounter];
-
-                if(value == 0) {
-                    System.out.println("BRK!");
-                    break;
-                }
-
-                Pair<InstructionInfo, InstructionsFunction> instructionPair = instructions[Byte.toUnsignedInt(value)];
-                programCounter = Short.toUnsignedInt(
-                        instructionPair.right().apply(
-                                programCounter,
-                                memory,
-                                registrars,
-                                instructionPair.left()
-                        )
-                );
-                programCounter--;
-            }catch (Exception e) {
-                e.printStackTrace();
+        LoadedProgram program = Loader.loadProgram(filePath, loadAddress, memory);
+        if(program == null) return;
+
+        Cpu cpu = new Cpu(memory, registrars, illegalOpcodes);
+        cpu.setBlockCompilerEnabled(blockCompiler);
+        cpu.setSuperInstructionsEnabled(superInstructions);
+        cpu.reset();
+        if(memory instanceof InstrumentedMemory instrumented) {
+            // Fetches are only seen when instructions are decoded, which the cache would skip
+            cpu.setDecodeCacheEnabled(false);
+            instrumented.resetCounts();
+        }
+        if(profile) cpu.setOpcodeProfiler(new OpcodeProfiler());
+        if(callStacksPath != null) {
+            CallStackProfiler callStackProfiler = new CallStackProfiler();
+            if(symbolsPath != null) callStackProfiler.loadSymbols(Path.of(symbolsPath));
+            cpu.setCallStackProfiler(callStackProfiler);
+        }
+        if(tracePath != null) cpu.setTracer(ExecutionTracer.open(Path.of(tracePath)));
+
+        MachineMonitor monitor = jmx ? MachineMonitor.register(cpu) : null;
+        int reason = cpu.run();
+        if(monitor != null) monitor.unregister();
+        if(cpu.getTracer() != null) {
+            cpu.getTracer().close();
+            System.out.printf("Traced %d instructions, %d dropped%n", cpu.getTracer().getRecorded(), cpu.getTracer().getDropped());
+        }
+        if(reason == StopReason.BRK) System.out.println("BRK!");
+        else System.out.printf("%s at $%04X%n", StopReason.getName(reason), cpu.getProgramCounter());
+        if(superInstructions) System.out.print(cpu.getSuperInstructions().getReport());
+        if(profile) System.out.print(cpu.getOpcodeProfiler().getReport());
+        if(memory instanceof InstrumentedMemory instrumented) {
+            System.out.print(instrumented.getReport());
+            instrumented.write(Path.of(heatmapPath));
+        }
+        if(callStacksPath != null) {
+            System.out.print(cpu.getCallStackProfiler().getReport());
+            try(Writer writer = Files.newBufferedWriter(Path.of(callStacksPath), StandardCharsets.UTF_8)) {
+                cpu.getCallStackProfiler().writeCollapsedStacks(writer);
             }
         }
 
         Loader.dumpMemory("G:\\Projects\\6502 Emulator\\resources\\dump.bin", memory);
     }
+
+    /// Removes the option and its value from arguments and returns the value, or fallback if the option is missing.
+    private static String option(List<String> arguments, String name, String fallback) {
+        int index = arguments.indexOf(name);
+        if(index == -1) return fallback;
+
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
 }
@@ -0,0 +1,121 @@
+package nazario.emulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// {@link Memory} backed by a 64 KiB memory image file mapped with a {@link MappedByteBuffer} instead of a heap array.
+///
+/// Opening an image is a mapping rather than a copy, and {@link #force()} persists the current state to the file without copying it through the heap.
+/// The page table of {@link Memory} works the same, RAM and ROM pages are stored in the mapped file.
+public class MappedMemory extends Memory {
+    protected final Path path;
+    protected final MappedByteBuffer buffer;
+
+    protected MappedMemory(Path path, MappedByteBuffer buffer) {
+        super(new byte[0]);
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /// Maps the image at path, it is created or extended to 64 KiB if it is shorter.
+    public static MappedMemory open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new MappedMemory(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, 0x10000));
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /// Returns `true` if path is the image file this memory maps.
+    public boolean isMapping(Path path) throws IOException {
+        return path.toFile().exists() && Files.isSameFile(this.path, path);
+    }
+
+    /// Writes all changes back to the image file.
+    public void force() {
+        this.buffer.force();
+    }
+
+    /// Writes the memory to another file, straight from the mapping.
+    public void writeTo(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = this.buffer.duplicate().clear();
+            while(source.hasRemaining()) channel.write(source);
+        }
+    }
+
+    @Override
+    public void pushToStack(byte value) {
+        writeValue(this.stackPointer++, value);
+    }
+
+    @Override
+    public byte pullFromStack() {
+        return getValue(this.stackPointer--);
+    }
+
+    @Override
+    public void writeValue(int index, byte value) {
+        index &= 0xFFFF;
+        if(this.mapped) {
+            int page = index >>> 8;
+            if(this.pageTypes[page] == DEVICE) {
+                this.devices[page].write(index, value);
+                return;
+            }
+            if(this.pageTypes[page] == ROM) return;
+
+            int base = this.pageBases[page];
+            this.buffer.put(base | (index & 0xFF), value);
+            markDirty(base);
+            invalidateMapped(index, base);
+            return;
+        }
+
+        this.buffer.put(index, value);
+        markDirty(index);
+        if(this.decodeCache != null) this.decodeCache.invalidate(index);
+    }
+
+    @Override
+    public byte getValue(int index) {
+        index &= 0xFFFF;
+        if(this.mapped) {
+            int page = index >>> 8;
+            if(this.pageTypes[page] == DEVICE) return this.devices[page].read(index);
+            return this.buffer.get(this.pageBases[page] | (index & 0xFF));
+        }
+
+        return this.buffer.get(index);
+    }
+
+    /// The bytes are stored in the mapped file rather than an array, see {@link #copyMemory()}.
+    @Override
+    public byte[] getMemory() {
+        throw new UnsupportedOperationException("Mapped memory has no backing array");
+    }
+
+    @Override
+    public byte[] copyMemory() {
+        byte[] bytes = new byte[0x10000];
+        this.buffer.get(0, bytes);
+        return bytes;
+    }
+
+    @Override
+    public void copyPage(int page, byte[] into) {
+        this.buffer.get(page << 8, into, 0, 0x100);
+    }
+
+    @Override
+    protected void copyIn(int index, byte[] data, int offset, int length) {
+        this.buffer.put(index, data, offset, length);
+    }
+}
@@ -1,22 +1,68 @@
 package nazario.emulator;
 
 import nazario.emulator.util.AddressingMode;
+import nazario.emulator.util.MemoryDevice;
 
+import java.util.Arrays;
+
+/// 64K address space, split into 256 pages of 256 bytes that are mapped as {@link #RAM}, {@link #ROM} or to a {@link MemoryDevice}.
+///
+/// Every page is plain RAM until one is mapped, and as long as that is the case reads and writes are a single array access.
+/// Mapped RAM and ROM pages are still backed by {@link #getMemory()} at the index given by the page table, only device pages pay for a virtual call.
 public class Memory {
+    public static final int RAM = 0;
+    public static final int ROM = 1;
+    public static final int DEVICE = 2;
+
+    /// Returned by {@link #resolveAddress} for {@link AddressingMode#ACCUMULATOR}.
+    public static final int ACCUMULATOR = -1;
+    /// Set in an address returned by {@link #resolveAddress} if indexing crossed a page boundary.
+    public static final int PAGE_CROSSED = 1 << 16;
+
     protected byte[] memory;
     protected short stackPointer;
+    protected DecodeCache decodeCache;
+
+    /// {@link #RAM}, {@link #ROM} or {@link #DEVICE} for every page.
+    protected final byte[] pageTypes = new byte[0x100];
+    /// Index into {@link #memory} of the first byte of every RAM or ROM page, a mirrored page shares the base of the page it mirrors.
+    protected final int[] pageBases = new int[0x100];
+    protected final MemoryDevice[] devices = new MemoryDevice[0x100];
+    /// False as long as every page is RAM at its own address, reads and writes skip the page table then.
+    protected boolean mapped;
+    /// True once a page mirrors another, writes then have to invalidate every address that shows the written byte.
+    protected boolean mirrored;
+
+    /// One bit per page of {@link #getMemory()} that has been written since the last {@link #clearDirtyPages()}.
+    protected final long[] dirtyPages = new long[4];
 
     public Memory() {
-        this.memory = new byte[0x10000];
+        this(new byte[0x10000]);
+    }
+
+    /// Used by subclasses that keep the bytes somewhere else, see {@link MappedMemory}.
+    protected Memory(byte[] memory) {
+        this.memory = memory;
         this.stackPointer = 0x0100;
+        for(int page = 0;page<0x100;page++) this.pageBases[page] = page << 8;
     }
 
     public void pushToStack(byte value) {
-        this.memory[stackPointer++] = value;
+        int index = stackPointer++;
+        if(this.mapped) {
+            writeValue(index, value);
+            return;
+        }
+
+        this.memory[index] = value;
+        markDirty(index);
+        if(this.decodeCache != null) this.decodeCache.invalidate(index);
     }
 
     public byte pullFromStack() {
-        return this.memory[stackPointer--];
+        int index = stackPointer--;
+        if(this.mapped) return getValue(index);
+        return this.memory[index];
     }
 
     public short getStackPointer() {
@@ -24,11 +70,60 @@ public class Memory {
     }
 
     public void writeValue(int index, byte value) {
-        this.memory[index & 0xFFFF] = value;
+        index &= 0xFFFF;
+        if(this.mapped) {
+            writeMapped(index, value);
+            return;
+        }
+
+        this.memory[index] = value;
+        markDirty(index);
+        if(this.decodeCache != null) this.decodeCache.invalidate(index);
+    }
+
+    /// Writes length bytes of data starting at index, the same as calling {@link #writeValue(int, byte)} for every byte but copied in bulk while no page is mapped.
+    public void writeBlock(int index, byte[] data, int offset, int length) {
+        if(length == 0) return;
+        if(this.mapped || index < 0 || index + length > 0x10000) {
+            for(int i = 0;i<length;i++) writeValue(index + i, data[offset + i]);
+            return;
+        }
+
+        copyIn(index, data, offset, length);
+        for(int page = index >>> 8;page<=(index + length - 1) >>> 8;page++) markDirty(page << 8);
+        if(this.decodeCache != null) this.decodeCache.invalidateRange(index, length);
     }
 
     public byte getValue(int index) {
-        return this.memory[index & 0xFFFF];
+        index &= 0xFFFF;
+        if(this.mapped) return getMapped(index);
+        return this.memory[index];
+    }
+
+    /// Reads a byte of an instruction, the opcode or an operand. Same as {@link #getValue(int)}, kept apart so that {@link InstrumentedMemory} can count fetches.
+    public byte fetchValue(int index) {
+        return getValue(index);
+    }
+
+    private byte getMapped(int index) {
+        int page = index >>> 8;
+        if(this.pageTypes[page] == DEVICE) return this.devices[page].read(index);
+        return this.memory[this.pageBases[page] | (index & 0xFF)];
+    }
+
+    /// Writes to ROM pages are ignored.
+    private void writeMapped(int index, byte value) {
+        int page = index >>> 8;
+        switch(this.pageTypes[page]) {
+            case RAM -> {
+                int base = this.pageBases[page];
+                this.memory[base | (index & 0xFF)] = value;
+                markDirty(base);
+                invalidateMapped(index, base);
+            }
+            case DEVICE -> this.devices[page].write(index, value);
+            default -> {}
+        }
     }
 
     public byte getStackPointerValue() {
@@ -39,45 +134,164 @@ public class Memory {
         this.writeValue(this.getStackPointer(), value);
     }
 
+    /// Writes made directly to the returned array bypass {@link #writeValue(int, byte)}, call {@link DecodeCache#invalidateAll()} afterwards if a cache is attached.
+    ///
+    /// Once pages are mapped the array is the storage of the RAM and ROM pages, a mirrored page is stored at the page it mirrors and device pages are not stored at all.
+    /// Subclasses that do not keep their storage in one array, like {@link MappedMemory} and {@link CowMemory}, throw {@link UnsupportedOperationException}, {@link #copyMemory()} works on every memory.
     public byte[] getMemory() {
         return this.memory;
     }
 
+    /// Returns a copy of the 64K storage of {@link #getMemory()}, writes to it do not change the memory.
+    public byte[] copyMemory() {
+        return this.memory.clone();
+    }
+
+    /// Invalidates the cached instructions covering index, and the same byte in every page that mirrors the storage at base.
+    protected void invalidateMapped(int index, int base) {
+        if(this.decodeCache == null) return;
+        if(!this.mirrored) {
+            this.decodeCache.invalidate(index);
+            return;
+        }
+
+        // Every page sharing the storage shows the written byte
+        for(int alias = 0;alias<0x100;alias++) {
+            if(this.pageBases[alias] == base && this.pageTypes[alias] == RAM) this.decodeCache.invalidate((alias << 8) | (index & 0xFF));
+        }
+    }
+
+    //region * Page Table *
+    /// Maps count pages starting at page as RAM at their own address, undoing any other mapping.
+    public void mapRam(int page, int count) {
+        for(int i = page;i<page + count;i++) setPage(i, RAM, i << 8, null);
+        remapped();
+    }
+
+    /// Maps count pages starting at page as RAM that shares the storage of the pages starting at targetPage, e.g. the mirrors of the 2K RAM of an NES.
+    public void mapMirror(int page, int count, int targetPage) {
+        for(int i = 0;i<count;i++) setPage(page + i, RAM, this.pageBases[targetPage + i], null);
+        this.mirrored = true;
+        remapped();
+    }
+
+    /// Copies data into memory at the start of page and maps the pages it covers as ROM, writes to them are ignored.
+    public void mapRom(int page, byte[] data) {
+        int start = page << 8;
+        if(start + data.length > 0x10000) throw new IllegalArgumentException("ROM of " + data.length + " bytes does not fit at page " + page);
+
+        copyIn(start, data, 0, data.length);
+        int pages = (data.length + 0xFF) >>> 8;
+        for(int i = page;i<page + pages;i++) {
+            setPage(i, ROM, i << 8, null);
+            markDirty(i << 8);
+        }
+        remapped();
+    }
+
+    /// Maps count pages starting at page to device, every read and write to them is passed to it.
+    ///
+    /// The {@link DecodeCache} does not see changes made by the device itself, so code is not expected to run from device pages.
+    public void mapDevice(int page, int count, MemoryDevice device) {
+        for(int i = page;i<page + count;i++) setPage(i, DEVICE, i << 8, device);
+        remapped();
+    }
+
+    /// Copies data into the storage at index, without going through the page table.
+    protected void copyIn(int index, byte[] data, int offset, int length) {
+        System.arraycopy(data, offset, this.memory, index, length);
+    }
+
+    /// Returns {@link #RAM}, {@link #ROM} or {@link #DEVICE}.
+    public int getPageType(int page) {
+        return this.pageTypes[page];
+    }
+
+    private void setPage(int page, int type, int base, MemoryDevice device) {
+        this.pageTypes[page] = (byte) type;
+        this.pageBases[page] = base;
+        this.devices[page] = device;
+        this.mapped = true;
+    }
+
+    /// Cached instructions may have been decoded from what was mapped before.
+    private void remapped() {
+        if(this.decodeCache != null) this.decodeCache.invalidateAll();
+    }
+    //endregion
+
+    //region * Dirty Pages *
+    /// Marks the page of the storage index as written.
+    protected void markDirty(int index) {
+        this.dirtyPages[index >>> 14] |= 1L << (index >>> 8);
+    }
+
+    /// Returns `true` if the page has been written since the last {@link #clearDirtyPages()}, pages are numbered by their index in {@link #getMemory()}.
+    public boolean isPageDirty(int page) {
+        return (this.dirtyPages[page >>> 6] & (1L << page)) != 0;
+    }
+
+    public int getDirtyPageCount() {
+        int count = 0;
+        for(long bits : this.dirtyPages) count += Long.bitCount(bits);
+        return count;
+    }
+
+    /// Copies the 256 bytes of a page of {@link #getMemory()} into page.
+    public void copyPage(int page, byte[] into) {
+        System.arraycopy(this.memory, page << 8, into, 0, 0x100);
+    }
+
+    /// Starts a new checkpoint, see {@link MemoryDelta}.
+    public void clearDirtyPages() {
+        Arrays.fill(this.dirtyPages, 0);
+    }
+    //endregion
+
+    public DecodeCache getDecodeCache() {
+        return this.decodeCache;
+    }
+
+    /// Attaches the cache that is notified of every write, or detaches it if decodeCache is null.
+    public void setDecodeCache(DecodeCache decodeCache) {
+        this.decodeCache = decodeCache;
+    }
+
     ///If {@link AddressingMode} is equal to {@link AddressingMode#ACCUMULATOR ACCUMULATOR} it will return the value that is stored in the accumulator from {@link Registrars}.
     public byte getValueFromAddress(int programCounter, AddressingMode addressingMode, Registrars registrars) {
-        if(addressingMode == AddressingMode.ACCUMULATOR) return registrars.accumulator;
-
-        return getValue(
-                getAddress(programCounter, addressingMode, registrars)
-        );
+        return getResolvedValue(resolveAddress(programCounter, addressingMode, registrars), registrars);
     }
 
     ///If {@link AddressingMode} is equal to {@link AddressingMode#ACCUMULATOR ACCUMULATOR} it will set the accumulator from {@link Registrars} to value.
     public void writeValueToAddress(int programCounter, AddressingMode addressingMode, Registrars registrars, byte value) {
-        if(addressingMode == AddressingMode.ACCUMULATOR) {
-            registrars.accumulator = value;
-            return;
-        }
-
-        short address = getAddress(programCounter, addressingMode, registrars);
-        writeValue(address, value);
+        writeResolvedValue(resolveAddress(programCounter, addressingMode, registrars), registrars, value);
     }
 
     public short getAddress(int programCounter, AddressingMode addressingMode, Registrars registrars) {
-        short address = switch(addressingMode) {
-            case IMMEDIATE -> (short) ((programCounter + 1) & 0xFFFF);
+        if(addressingMode == AddressingMode.ACCUMULATOR) throw new UnsupportedOperationException("Unsupported addressing mode: " + addressingMode);
 
-            case RELATIVE -> {
-                byte offset = getValue(programCounter + 1);
-                yield (short)(programCounter + offset);
-            }
+        return (short) resolveAddress(programCounter, addressingMode, registrars);
+    }
+
+    /// Resolves the effective address of the instruction at programCounter once, so that read-modify-write instructions can read and write it without resolving it again.
+    ///
+    /// The address is in the low 16 bits, {@link #PAGE_CROSSED} is set if an ABSOLUTE_X, ABSOLUTE_Y or INDIRECT_Y index crossed into the next page.
+    /// For {@link AddressingMode#ACCUMULATOR ACCUMULATOR} it returns {@link #ACCUMULATOR}, which {@link #getResolvedValue} and {@link #writeResolvedValue} map to the accumulator.
+    public int resolveAddress(int programCounter, AddressingMode addressingMode, Registrars registrars) {
+        return switch(addressingMode) {
+            case ACCUMULATOR -> ACCUMULATOR;
 
-            case ZERO_PAGE, ZERO_PAGE_X, ZERO_PAGE_Y ->
-                    (short) Byte.toUnsignedInt(getValue(programCounter + 1));
+            case IMMEDIATE -> (programCounter + 1) & 0xFFFF;
 
-            case ABSOLUTE, ABSOLUTE_X, ABSOLUTE_Y ->
-                    (short) (((Byte.toUnsignedInt(getValue(programCounter + 2)) << 8)
-                            | Byte.toUnsignedInt(getValue(programCounter + 1))) & 0xFFFF);
+            case RELATIVE -> (programCounter + getValue(programCounter + 1)) & 0xFFFF;
+
+            case ZERO_PAGE -> Byte.toUnsignedInt(getValue(programCounter + 1));
+            case ZERO_PAGE_X -> Byte.toUnsignedInt(getValue(programCounter + 1)) + Byte.toUnsignedInt(registrars.registerX);
+            case ZERO_PAGE_Y -> Byte.toUnsignedInt(getValue(programCounter + 1)) + Byte.toUnsignedInt(registrars.registerY);
+
+            case ABSOLUTE -> absolute(programCounter);
+            case ABSOLUTE_X -> indexed(absolute(programCounter), registrars.registerX);
+            case ABSOLUTE_Y -> indexed(absolute(programCounter), registrars.registerY);
 
             case INDIRECT_X -> {
                 int operand = Byte.toUnsignedInt(getValue(programCounter + 1));
@@ -85,25 +299,46 @@ public class Memory {
 
                 int low = Byte.toUnsignedInt(getValue(pointer));
                 int high = Byte.toUnsignedInt(getValue((pointer + 1) & 0xFF)); // also wraps zero-page
-                yield (short) ((high << 8) | low);
+                yield (high << 8) | low;
             }
 
             case INDIRECT_Y -> {
                 int operand = Byte.toUnsignedInt(getValue(programCounter + 1));
                 int low = Byte.toUnsignedInt(getValue(operand));
                 int high = Byte.toUnsignedInt(getValue((operand + 1) & 0xFF));
-                int baseAddress = (high << 8) | low;
-                yield (short) ((baseAddress + Byte.toUnsignedInt(registrars.registerY)) & 0xFFFF);
+                yield indexed((high << 8) | low, registrars.registerY);
             }
 
             default -> throw new UnsupportedOperationException("Unsupported addressing mode: " + addressingMode);
         };
+    }
 
-        // Apply register offset where appropriate
-        return switch(addressingMode) {
-            case ZERO_PAGE_X, ABSOLUTE_X -> (short) ((address + Byte.toUnsignedInt(registrars.registerX)) & 0xFFFF);
-            case ZERO_PAGE_Y, ABSOLUTE_Y -> (short) ((address + Byte.toUnsignedInt(registrars.registerY)) & 0xFFFF);
-            default -> address; // no further offset
-        };
+    /// Reads the value at an address returned by {@link #resolveAddress}.
+    public byte getResolvedValue(int resolvedAddress, Registrars registrars) {
+        if(resolvedAddress == ACCUMULATOR) return registrars.accumulator;
+        return getValue(resolvedAddress);
+    }
+
+    /// Writes value to an address returned by {@link #resolveAddress}.
+    public void writeResolvedValue(int resolvedAddress, Registrars registrars, byte value) {
+        if(resolvedAddress == ACCUMULATOR) {
+            registrars.accumulator = value;
+            return;
+        }
+
+        writeValue(resolvedAddress, value);
+    }
+
+    public static boolean isPageCrossed(int resolvedAddress) {
+        return resolvedAddress != ACCUMULATOR && (resolvedAddress & PAGE_CROSSED) != 0;
+    }
+
+    private int absolute(int programCounter) {
+        return (Byte.toUnsignedInt(getValue(programCounter + 2)) << 8) | Byte.toUnsignedInt(getValue(programCounter + 1));
+    }
+
+    private static int indexed(int baseAddress, byte index) {
+        int address = (baseAddress + Byte.toUnsignedInt(index)) & 0xFFFF;
+        return ((baseAddress ^ address) & 0xFF00) == 0 ? address : address | PAGE_CROSSED;
     }
 }
@@ -0,0 +1,73 @@
+package nazario.emulator;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+/// Incremental memory dumps that only contain the pages written since the last checkpoint.
+///
+/// A delta starts with {@link #MAGIC} and the number of pages, followed by the page number and the 256 bytes of every page.
+/// A full image is rebuilt by applying a chain of deltas to the full dump taken at the first checkpoint, see {@link #main(String[])}.
+public class MemoryDelta {
+    public static final int MAGIC = 0x36354444; // "65DD"
+
+    /// Writes the pages of memory written since the last checkpoint and starts a new one, returns the number of pages written.
+    public static int write(OutputStream outputStream, Memory memory) throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        dataOutputStream.writeInt(MAGIC);
+
+        int count = memory.getDirtyPageCount();
+        dataOutputStream.writeShort(count);
+
+        byte[] page = new byte[0x100];
+        for(int i = 0;i<0x100;i++) {
+            if(!memory.isPageDirty(i)) continue;
+
+            memory.copyPage(i, page);
+            dataOutputStream.writeByte(i);
+            dataOutputStream.write(page);
+        }
+        dataOutputStream.flush();
+
+        memory.clearDirtyPages();
+        return count;
+    }
+
+    /// Applies a delta written by {@link #write(OutputStream, Memory)} to a 64 KiB image.
+    public static void apply(InputStream inputStream, byte[] image) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        if(dataInputStream.readInt() != MAGIC) throw new IOException("Not a memory delta");
+
+        int count = dataInputStream.readUnsignedShort();
+        for(int i = 0;i<count;i++) {
+            int page = dataInputStream.readUnsignedByte();
+            dataInputStream.readFully(image, page << 8, 0x100);
+        }
+    }
+
+    /// Reads the full image at basePath and applies the deltas in order.
+    public static byte[] rebuild(String basePath, List<String> deltaPaths) throws IOException {
+        byte[] image;
+        try(FileInputStream fileInputStream = new FileInputStream(basePath)) {
+            image = Arrays.copyOf(fileInputStream.readAllBytes(), 0x10000);
+        }
+
+        for(String deltaPath : deltaPaths) {
+            try(FileInputStream fileInputStream = new FileInputStream(deltaPath)) {
+                apply(fileInputStream, image);
+            }
+        }
+        return image;
+    }
+
+    /// Usage: `<base image> <output image> <delta>...`
+    ///
+    /// Rebuilds a full memory image from a base dump and a chain of deltas.
+    public static void main(String[] args) throws IOException {
+        byte[] image = rebuild(args[0], Arrays.asList(args).subList(2, args.length));
+
+        try(FileOutputStream fileOutputStream = new FileOutputStream(args[1])) {
+            fileOutputStream.write(image);
+        }
+    }
+}
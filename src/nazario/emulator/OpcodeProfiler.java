@@ -0,0 +1,112 @@
+package nazario.emulator;
+
+import nazario.emulator.util.Instruction;
+import nazario.emulator.util.InstructionInfo;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/// Counts the executions and cycles of every opcode run by a {@link Cpu}, see {@link Cpu#setOpcodeProfiler(OpcodeProfiler)}.
+///
+/// The counters are plain `long[]` arrays indexed by opcode and only updated by the thread running the cpu, instructions, addressing modes and {@link InstructionInfo} entries are summed up when the report is made.
+public class OpcodeProfiler {
+    protected final long[] executions = new long[0x100];
+    protected final long[] cycles = new long[0x100];
+
+    void count(int opcode, long cycles) {
+        this.executions[opcode]++;
+        this.cycles[opcode] += cycles;
+    }
+
+    public long getExecutions(int opcode) {
+        return this.executions[opcode];
+    }
+
+    public long getCycles(int opcode) {
+        return this.cycles[opcode];
+    }
+
+    /// Adds the counts of other, used to report the profiles of many machines at once.
+    public void add(OpcodeProfiler other) {
+        for(int i = 0;i<0x100;i++) {
+            this.executions[i] += other.executions[i];
+            this.cycles[i] += other.cycles[i];
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(this.executions, 0);
+        Arrays.fill(this.cycles, 0);
+    }
+
+    /// Lists the counts per instruction, per addressing mode and per {@link InstructionInfo} entry, every table sorted by cycles with the most expensive first.
+    public String getReport() {
+        long totalExecutions = 0;
+        long totalCycles = 0;
+        Map<String, long[]> instructions = new HashMap<>();
+        Map<String, long[]> modes = new HashMap<>();
+        Map<String, long[]> entries = new HashMap<>();
+
+        for(int opcode = 0;opcode<0x100;opcode++) {
+            if(this.executions[opcode] == 0) continue;
+            totalExecutions += this.executions[opcode];
+            totalCycles += this.cycles[opcode];
+
+            String name = NAMES[opcode] == null ? "???" : NAMES[opcode];
+            String mode = INFOS[opcode] == null ? "UNKNOWN" : INFOS[opcode].mode().name();
+            add(instructions, name, opcode);
+            add(modes, mode, opcode);
+            add(entries, String.format("$%02X %s %s", opcode, name, mode), opcode);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%d instructions, %d cycles%n", totalExecutions, totalCycles));
+        table(builder, "Instruction", instructions, totalCycles);
+        table(builder, "Addressing mode", modes, totalCycles);
+        table(builder, "Opcode", entries, totalCycles);
+        return builder.toString();
+    }
+
+    private void add(Map<String, long[]> map, String key, int opcode) {
+        long[] counts = map.computeIfAbsent(key, k -> new long[2]);
+        counts[0] += this.executions[opcode];
+        counts[1] += this.cycles[opcode];
+    }
+
+    private static void table(StringBuilder builder, String title, Map<String, long[]> rows, long totalCycles) {
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(rows.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+        builder.append(String.format("%n%-24s %14s %14s %7s%n", title, "executions", "cycles", "cycles%"));
+        for(Map.Entry<String, long[]> row : sorted) {
+            long[] counts = row.getValue();
+            builder.append(String.format("%-24s %14d %14d %6.2f%%%n", row.getKey(), counts[0], counts[1], totalCycles == 0 ? 0 : counts[1] * 100.0 / totalCycles));
+        }
+    }
+
+    /// Mnemonic of every opcode, the name of the {@link Instruction} field registering it in {@link InstructionSet} or {@link IllegalInstructionSet}.
+    private static final String[] NAMES = new String[0x100];
+    private static final InstructionInfo[] INFOS = new InstructionInfo[0x100];
+
+    static {
+        registerNames(InstructionSet.class);
+        registerNames(IllegalInstructionSet.class);
+    }
+
+    private static void registerNames(Class<?> instructionSet) {
+        for(Field field : instructionSet.getFields()) {
+            if(!Modifier.isStatic(field.getModifiers()) || field.getType() != Instruction.class) continue;
+
+            try {
+                Instruction instruction = (Instruction) field.get(null);
+                for(InstructionInfo info : instruction.getInfos()) {
+                    NAMES[info.opcode()] = field.getName();
+                    INFOS[info.opcode()] = info;
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Can not read " + field, e);
+            }
+        }
+    }
+}
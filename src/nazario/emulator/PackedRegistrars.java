@@ -0,0 +1,97 @@
+package nazario.emulator;
+
+/// Register file used by {@link Cpu}, an alternative to {@link Registrars} that is cheaper to update.
+///
+/// The carry, interrupt disable, decimal mode, break and overflow flags are packed into {@link #status} using the bit positions of the processor status byte.
+/// The zero and negative flags are not stored at all, instead {@link #zeroNegative} keeps the last result and the two flags are only derived from it when a branch or {@link #getProcessorStatus()} reads them.
+public class PackedRegistrars {
+    public static final int CARRY = 1 << 0;
+    public static final int ZERO = 1 << 1;
+    public static final int INTERRUPT_DISABLE = 1 << 2;
+    public static final int DECIMAL_MODE = 1 << 3;
+    public static final int BREAK = 1 << 4;
+    public static final int UNUSED = 1 << 5;
+    public static final int OVERFLOW = 1 << 6;
+    public static final int NEGATIVE = 1 << 7;
+
+    private static final int STORED_FLAGS = CARRY | INTERRUPT_DISABLE | DECIMAL_MODE | BREAK | OVERFLOW;
+
+    protected byte registerX;
+    protected byte registerY;
+    protected byte accumulator;
+
+    /// Holds {@link #CARRY}, {@link #INTERRUPT_DISABLE}, {@link #DECIMAL_MODE}, {@link #BREAK} and {@link #OVERFLOW}, every other bit is always 0.
+    protected int status;
+
+    /// The zero flag is set if the low byte is 0 and the negative flag is set if bit 7 or bit 8 is set.
+    ///
+    /// Storing a result byte (sign extended or not) gives the flags every load, transfer and arithmetic instruction expects, {@link #zeroNegative(boolean, boolean)} encodes any other combination.
+    protected int zeroNegative;
+
+    public byte getAccumulator() {
+        return this.accumulator;
+    }
+
+    public byte getRegisterX() {
+        return this.registerX;
+    }
+
+    public byte getRegisterY() {
+        return this.registerY;
+    }
+
+    public boolean isCarry() {
+        return (this.status & CARRY) != 0;
+    }
+
+    public void setCarry(boolean carry) {
+        this.status = (this.status & ~CARRY) | (carry ? CARRY : 0);
+    }
+
+    public boolean isOverflow() {
+        return (this.status & OVERFLOW) != 0;
+    }
+
+    public void setOverflow(boolean overflow) {
+        this.status = (this.status & ~OVERFLOW) | (overflow ? OVERFLOW : 0);
+    }
+
+    public boolean isZero() {
+        return (this.zeroNegative & 0xFF) == 0;
+    }
+
+    public boolean isNegative() {
+        return (this.zeroNegative & 0x180) != 0;
+    }
+
+    /// Encodes a zero and negative flag that are not described by a single result byte, e.g. for {@link InstructionSet#BIT BIT}.
+    public static int zeroNegative(boolean zero, boolean negative) {
+        return (zero ? 0 : 1) | (negative ? 0x100 : 0);
+    }
+
+    public byte getProcessorStatus() {
+        int status = this.status | UNUSED; // Unused bit, always set to 1 when pushed
+        if(isZero())     status |= ZERO;
+        if(isNegative()) status |= NEGATIVE;
+        return (byte) status;
+    }
+
+    public void setProcessorStatus(byte status) {
+        this.status = status & STORED_FLAGS;
+        this.zeroNegative = zeroNegative((status & ZERO) != 0, (status & NEGATIVE) != 0);
+    }
+
+    public void copyFrom(Registrars registrars) {
+        this.accumulator = registrars.accumulator;
+        this.registerX = registrars.registerX;
+        this.registerY = registrars.registerY;
+        setProcessorStatus(registrars.getProcessorStatus());
+    }
+
+    public void copyTo(Registrars registrars) {
+        registrars.accumulator = this.accumulator;
+        registrars.registerX = this.registerX;
+        registrars.registerY = this.registerY;
+        registrars.setProcessorStatus(getProcessorStatus());
+    }
+}
@@ -0,0 +1,265 @@
+package nazario.emulator;
+
+import nazario.emulator.util.LoadedProgram;
+import nazario.emulator.util.ProgramFormat;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// Loads programs in any {@link ProgramFormat} into {@link Memory}.
+///
+/// Binary formats are streamed in chunks and text formats record by record, every chunk is copied with {@link Memory#writeBlock(int, byte[], int, int)} so a file is never held in memory as a whole.
+/// Unless the program writes the reset vector at $FFFC itself, it is set to the start address so {@link Cpu#reset()} starts the program.
+public class ProgramLoader {
+    public static final int RESET_VECTOR = 0xFFFC;
+
+    private static final int CHUNK = 0x1000;
+    private static final int INES_HEADER = 16;
+    private static final int INES_TRAINER = 512;
+    private static final int INES_BANK = 0x4000;
+
+    protected final Memory memory;
+    protected final ProgramFormat format;
+
+    protected int segments;
+    protected int bytes;
+    protected int segmentEnd = -1;
+    protected int firstAddress = -1;
+    protected boolean resetVectorLoaded;
+
+    protected ProgramLoader(Memory memory, ProgramFormat format) {
+        this.memory = memory;
+        this.format = format;
+    }
+
+    /// Detects the format of the file and loads it, loadAddress is only used by {@link ProgramFormat#RAW}.
+    public static LoadedProgram load(Path path, int loadAddress, Memory memory) throws IOException {
+        try(InputStream inputStream = Files.newInputStream(path)) {
+            return load(inputStream, path.getFileName().toString(), loadAddress, memory);
+        }
+    }
+
+    /// Detects the format from the first bytes of inputStream and fileName and loads it, loadAddress is only used by {@link ProgramFormat#RAW}.
+    public static LoadedProgram load(InputStream inputStream, String fileName, int loadAddress, Memory memory) throws IOException {
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream, CHUNK);
+        byte[] header = new byte[4];
+        bufferedInputStream.mark(header.length);
+        int length = bufferedInputStream.readNBytes(header, 0, header.length);
+        bufferedInputStream.reset();
+
+        return load(bufferedInputStream, ProgramFormat.detect(fileName, header, length), loadAddress, memory);
+    }
+
+    /// Loads inputStream as format, loadAddress is only used by {@link ProgramFormat#RAW}.
+    public static LoadedProgram load(InputStream inputStream, ProgramFormat format, int loadAddress, Memory memory) throws IOException {
+        ProgramLoader loader = new ProgramLoader(memory, format);
+        int startAddress = switch(format) {
+            case RAW -> loader.loadRaw(inputStream, loadAddress);
+            case PRG -> loader.loadPrg(inputStream);
+            case INTEL_HEX -> loader.loadIntelHex(inputStream);
+            case S_RECORD -> loader.loadSRecord(inputStream);
+            case INES -> loader.loadINes(inputStream);
+            case SEGMENTED -> loader.loadSegmented(inputStream);
+        };
+        return loader.finish(startAddress);
+    }
+
+    //region * Binary Formats *
+    protected int loadRaw(InputStream inputStream, int loadAddress) throws IOException {
+        copy(inputStream, loadAddress, Integer.MAX_VALUE);
+        return loadAddress;
+    }
+
+    protected int loadPrg(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        int loadAddress = readWord(dataInputStream);
+        copy(inputStream, loadAddress, Integer.MAX_VALUE);
+        return loadAddress;
+    }
+
+    protected int loadSegmented(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        if(readWord(dataInputStream) != 0xFFFF) throw new IOException("Segmented binary does not start with $FFFF");
+
+        int startAddress = -1;
+        int low;
+        while((low = dataInputStream.read()) != -1) {
+            int start = low | dataInputStream.readUnsignedByte() << 8;
+            if(start == 0xFFFF) start = readWord(dataInputStream);
+            int end = readWord(dataInputStream);
+            if(end < start) throw new IOException(String.format("Segment ends at $%04X before it starts at $%04X", end, start));
+
+            int length = end - start + 1;
+            if(copy(inputStream, start, length) != length) throw new IOException(String.format("Segment at $%04X is truncated", start));
+            if(startAddress == -1) startAddress = start;
+        }
+        if(startAddress == -1) throw new IOException("Segmented binary has no segments");
+        return startAddress;
+    }
+
+    /// Maps the PRG ROM of an NROM cartridge as ROM at $8000, a single 16K bank is mirrored at $C000. The start address is the reset vector of the cartridge.
+    protected int loadINes(InputStream inputStream) throws IOException {
+        byte[] header = inputStream.readNBytes(INES_HEADER);
+        if(header.length != INES_HEADER || header[0] != 'N' || header[1] != 'E' || header[2] != 'S' || header[3] != 0x1A) throw new IOException("Missing iNES header");
+
+        int banks = header[4] & 0xFF;
+        int mapper = (header[6] & 0xF0) >>> 4 | header[7] & 0xF0;
+        if(mapper != 0) throw new IOException("Unsupported iNES mapper " + mapper);
+        if(banks != 1 && banks != 2) throw new IOException("NROM cartridge with " + banks + " PRG banks");
+        if((header[6] & 0x04) != 0) inputStream.skipNBytes(INES_TRAINER);
+
+        byte[] rom = inputStream.readNBytes(banks * INES_BANK);
+        if(rom.length != banks * INES_BANK) throw new IOException("PRG ROM is truncated");
+
+        this.memory.mapRom(0x80, rom);
+        if(banks == 1) this.memory.mapRom(0xC0, rom);
+        addSegment(0x8000, 0x8000);
+        return readResetVector();
+    }
+    //endregion
+
+    //region * Text Formats *
+    protected int loadIntelHex(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+        int base = 0;
+        int startAddress = -1;
+
+        String line;
+        while((line = reader.readLine()) != null) {
+            line = line.strip();
+            if(line.isEmpty()) continue;
+            if(line.charAt(0) != ':') throw new IOException("Intel HEX record does not start with ':': " + line);
+
+            byte[] record = decodeHex(line, 1);
+            if(record.length < 5) throw new IOException("Intel HEX record is too short: " + line);
+            int length = record[0] & 0xFF;
+            if(record.length != length + 5) throw new IOException("Intel HEX record has the wrong length: " + line);
+            if(checksum(record, 0, record.length) != 0) throw new IOException("Intel HEX checksum mismatch: " + line);
+
+            int offset = (record[1] & 0xFF) << 8 | record[2] & 0xFF;
+            switch(record[3]) {
+                case 0x00 -> write(base + offset, record, 4, length);
+                case 0x01 -> {
+                    return startAddress;
+                }
+                case 0x02 -> base = word(record, 4) << 4;
+                case 0x03 -> startAddress = (word(record, 4) << 4) + word(record, 6);
+                case 0x04 -> base = word(record, 4) << 16;
+                case 0x05 -> startAddress = word(record, 4) << 16 | word(record, 6);
+                default -> throw new IOException("Unknown Intel HEX record type: " + line);
+            }
+        }
+        return startAddress;
+    }
+
+    protected int loadSRecord(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+        int startAddress = -1;
+
+        String line;
+        while((line = reader.readLine()) != null) {
+            line = line.strip();
+            if(line.isEmpty()) continue;
+            if(line.length() < 2 || line.charAt(0) != 'S') throw new IOException("S-record does not start with 'S': " + line);
+
+            int type = line.charAt(1) - '0';
+            byte[] record = decodeHex(line, 2);
+            if(record.length < 1) throw new IOException("S-record is too short: " + line);
+            int count = record[0] & 0xFF;
+            if(record.length != count + 1) throw new IOException("S-record has the wrong length: " + line);
+            if(checksum(record, 0, record.length) != 0xFF) throw new IOException("S-record checksum mismatch: " + line);
+
+            int addressLength = switch(type) {
+                case 0, 1, 5, 9 -> 2;
+                case 2, 6, 8 -> 3;
+                case 3, 7 -> 4;
+                default -> throw new IOException("Unknown S-record type: " + line);
+            };
+            if(count < addressLength + 1) throw new IOException("S-record is too short for its address: " + line);
+            int address = 0;
+            for(int i = 1;i<=addressLength;i++) address = address << 8 | record[i] & 0xFF;
+
+            if(type >= 1 && type <= 3) write(address, record, 1 + addressLength, count - addressLength - 1);
+            else if(type >= 7) startAddress = address;
+        }
+        return startAddress;
+    }
+    //endregion
+
+    //region * Helpers *
+    /// Streams up to limit bytes from inputStream into memory at address, returns the number of bytes copied.
+    private int copy(InputStream inputStream, int address, int limit) throws IOException {
+        byte[] buffer = new byte[CHUNK];
+        int copied = 0;
+        int read;
+        while(copied < limit && (read = inputStream.read(buffer, 0, Math.min(buffer.length, limit - copied))) != -1) {
+            write(address + copied, buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    private void write(int address, byte[] data, int offset, int length) throws IOException {
+        if(length == 0) return;
+        if(address < 0 || address + length > 0x10000) throw new IOException(String.format("%d bytes at $%X do not fit into 64K", length, address));
+
+        this.memory.writeBlock(address, data, offset, length);
+        addSegment(address, length);
+    }
+
+    private void addSegment(int address, int length) {
+        if(address != this.segmentEnd) this.segments++;
+        if(this.firstAddress == -1) this.firstAddress = address;
+        this.segmentEnd = address + length;
+        this.bytes += length;
+        if(address <= RESET_VECTOR + 1 && address + length > RESET_VECTOR) this.resetVectorLoaded = true;
+    }
+
+    private LoadedProgram finish(int startAddress) throws IOException {
+        if(this.bytes == 0) throw new IOException("Program contains no data");
+
+        if(this.resetVectorLoaded) {
+            startAddress = readResetVector();
+        }else {
+            if(startAddress == -1) startAddress = this.firstAddress;
+            if(startAddress > 0xFFFF) throw new IOException(String.format("Start address $%X is outside of 64K", startAddress));
+            this.memory.writeValue(RESET_VECTOR, (byte) startAddress);
+            this.memory.writeValue(RESET_VECTOR + 1, (byte) (startAddress >>> 8));
+        }
+        return new LoadedProgram(this.format, startAddress, this.segments, this.bytes);
+    }
+
+    private int readResetVector() {
+        return (this.memory.getValue(RESET_VECTOR) & 0xFF) | (this.memory.getValue(RESET_VECTOR + 1) & 0xFF) << 8;
+    }
+
+    private static int readWord(DataInputStream dataInputStream) throws IOException {
+        return dataInputStream.readUnsignedByte() | dataInputStream.readUnsignedByte() << 8;
+    }
+
+    private static int word(byte[] data, int index) {
+        return (data[index] & 0xFF) << 8 | data[index + 1] & 0xFF;
+    }
+
+    private static byte[] decodeHex(String line, int start) throws IOException {
+        if((line.length() - start) % 2 != 0) throw new IOException("Odd number of hex digits: " + line);
+
+        byte[] data = new byte[(line.length() - start) / 2];
+        for(int i = 0;i<data.length;i++) {
+            int high = Character.digit(line.charAt(start + i * 2), 16);
+            int low = Character.digit(line.charAt(start + i * 2 + 1), 16);
+            if(high == -1 || low == -1) throw new IOException("Invalid hex digit: " + line);
+            data[i] = (byte) (high << 4 | low);
+        }
+        return data;
+    }
+
+    private static int checksum(byte[] data, int offset, int length) {
+        int sum = 0;
+        for(int i = offset;i<offset + length;i++) sum += data[i];
+        return sum & 0xFF;
+    }
+    //endregion
+}
@@ -0,0 +1,118 @@
+package nazario.emulator;
+
+import nazario.emulator.util.MemoryDevice;
+
+/// The complete state of a {@link Cpu} running on a {@link CowMemory}: memory, registers, stack pointer, program counter and counters.
+///
+/// Taking a snapshot does not copy any memory, the pages are shared copy-on-write with the cpu it was taken from and with every machine forked or restored from it.
+/// Memory-mapped devices are shared as they are, they are not part of the snapshot.
+public class Snapshot {
+    protected final byte[][] pages;
+    protected final byte[] pageTypes;
+    protected final int[] pageBases;
+    protected final MemoryDevice[] devices;
+    protected final boolean mapped;
+    protected final boolean mirrored;
+    protected final short stackPointer;
+
+    protected final byte accumulator;
+    protected final byte registerX;
+    protected final byte registerY;
+    protected final int status;
+    protected final int zeroNegative;
+
+    protected final int programCounter;
+    protected final long instructionCount;
+    protected final long cycles;
+
+    protected final boolean illegalOpcodes;
+    protected final boolean blockCompiler;
+    protected final boolean superInstructions;
+
+    protected Snapshot(Cpu cpu) {
+        if(!(cpu.memory instanceof CowMemory memory)) throw new IllegalArgumentException("Snapshots need a cpu running on a CowMemory");
+
+        this.pages = memory.sharePages();
+        this.pageTypes = memory.pageTypes.clone();
+        this.pageBases = memory.pageBases.clone();
+        this.devices = memory.devices.clone();
+        this.mapped = memory.mapped;
+        this.mirrored = memory.mirrored;
+        this.stackPointer = memory.stackPointer;
+
+        PackedRegistrars registrars = cpu.registrars;
+        this.accumulator = registrars.accumulator;
+        this.registerX = registrars.registerX;
+        this.registerY = registrars.registerY;
+        this.status = registrars.status;
+        this.zeroNegative = registrars.zeroNegative;
+
+        this.programCounter = cpu.programCounter;
+        this.instructionCount = cpu.instructionCount;
+        this.cycles = cpu.cycles;
+
+        this.illegalOpcodes = cpu.illegalOpcodes;
+        this.blockCompiler = cpu.blockCompiler != null;
+        this.superInstructions = cpu.superInstructions != null;
+    }
+
+    /// Takes a snapshot of cpu, which has to run on a {@link CowMemory}.
+    public static Snapshot of(Cpu cpu) {
+        EmulatorEvents.SnapshotOperation event = new EmulatorEvents.SnapshotOperation();
+        event.begin();
+        Snapshot snapshot = new Snapshot(cpu);
+        commit(event, cpu, "take");
+        return snapshot;
+    }
+
+    /// Returns a new machine that starts from this snapshot, with the same settings as the cpu it was taken from.
+    public Cpu fork() {
+        Cpu cpu = new Cpu(new CowMemory(this.pages), new Registrars(), this.illegalOpcodes);
+        cpu.setBlockCompilerEnabled(this.blockCompiler);
+        cpu.setSuperInstructionsEnabled(this.superInstructions);
+        restore(cpu);
+        return cpu;
+    }
+
+    /// Puts cpu back into the state of this snapshot, cpu has to run on a {@link CowMemory}.
+    public void restore(Cpu cpu) {
+        if(!(cpu.memory instanceof CowMemory memory)) throw new IllegalArgumentException("Snapshots need a cpu running on a CowMemory");
+        EmulatorEvents.SnapshotOperation event = new EmulatorEvents.SnapshotOperation();
+        event.begin();
+
+        System.arraycopy(this.pageTypes, 0, memory.pageTypes, 0, 0x100);
+        System.arraycopy(this.pageBases, 0, memory.pageBases, 0, 0x100);
+        System.arraycopy(this.devices, 0, memory.devices, 0, 0x100);
+        memory.mapped = this.mapped;
+        memory.mirrored = this.mirrored;
+        memory.stackPointer = this.stackPointer;
+        memory.setSharedPages(this.pages);
+
+        PackedRegistrars registrars = cpu.registrars;
+        registrars.accumulator = this.accumulator;
+        registrars.registerX = this.registerX;
+        registrars.registerY = this.registerY;
+        registrars.status = this.status;
+        registrars.zeroNegative = this.zeroNegative;
+
+        cpu.programCounter = this.programCounter;
+        cpu.instructionCount = this.instructionCount;
+        cpu.cycles = this.cycles;
+        commit(event, cpu, "restore");
+    }
+
+    private static void commit(EmulatorEvents.SnapshotOperation event, Cpu cpu, String operation) {
+        if(!event.shouldCommit()) return;
+        event.machine = cpu.getMachineId();
+        event.operation = operation;
+        event.commit();
+    }
+
+    public int getProgramCounter() {
+        return this.programCounter;
+    }
+
+    public long getCycles() {
+        return this.cycles;
+    }
+}
@@ -0,0 +1,123 @@
+package nazario.emulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Opcode pairs and triples that {@link Cpu} executes as a single fused handler, and how often each of them fired.
+///
+/// A fusion is looked up from the opcodes of the first two instructions with {@link #fusion(int, int)}; fusions of three instructions also check the third opcode, see {@link #third(int)}.
+/// The fused handlers count every instruction and its cycles and leave the registers, flags and memory exactly as running the instructions one after another would.
+public class SuperInstructions {
+    public static final int NONE = 0;
+
+    public static final int DEX_BNE = 1;
+    public static final int DEY_BNE = 2;
+    public static final int INX_BNE = 3;
+    public static final int INY_BNE = 4;
+    public static final int DEX_BPL = 5;
+    public static final int DEY_BPL = 6;
+
+    public static final int LDA_ABSOLUTE_X_STA_ABSOLUTE_Y = 7;
+    public static final int LDA_ABSOLUTE_Y_STA_ABSOLUTE_Y = 8;
+    public static final int LDA_ABSOLUTE_X_STA_ABSOLUTE_X = 9;
+    public static final int LDA_INDIRECT_Y_STA_INDIRECT_Y = 10;
+
+    public static final int CMP_IMMEDIATE_BEQ = 11;
+    public static final int CMP_IMMEDIATE_BNE = 12;
+    public static final int CPX_IMMEDIATE_BEQ = 13;
+    public static final int CPX_IMMEDIATE_BNE = 14;
+    public static final int CPY_IMMEDIATE_BEQ = 15;
+    public static final int CPY_IMMEDIATE_BNE = 16;
+
+    public static final int INX_CPX_IMMEDIATE_BNE = 17;
+    public static final int INY_CPY_IMMEDIATE_BNE = 18;
+
+    public static final int FUSIONS = 19;
+
+    protected final long[] counts = new long[FUSIONS];
+
+    /// Number of times fusion has been executed.
+    public long getCount(int fusion) {
+        return this.counts[fusion];
+    }
+
+    /// Adds the counts of other, used to report the fusions of many machines at once.
+    public void add(SuperInstructions other) {
+        for(int i = 0;i<FUSIONS;i++) this.counts[i] += other.counts[i];
+    }
+
+    /// Lists every fusion that fired, most frequent first.
+    public String getReport() {
+        List<Integer> fired = new ArrayList<>();
+        for(int i = 1;i<FUSIONS;i++) {
+            if(this.counts[i] != 0) fired.add(i);
+        }
+        fired.sort((a, b) -> Long.compare(this.counts[b], this.counts[a]));
+
+        StringBuilder builder = new StringBuilder();
+        for(int fusion : fired) builder.append(String.format("%-24s %d%n", NAMES[fusion], this.counts[fusion]));
+        return builder.toString();
+    }
+
+    /// Returns the fusion starting with the two opcodes or {@link #NONE}.
+    public static int fusion(int firstOpcode, int secondOpcode) {
+        return PAIRS[(firstOpcode << 8) | secondOpcode];
+    }
+
+    /// Returns `true` if opcode is the first opcode of any fusion, lets {@link Cpu} skip the lookup for every other instruction.
+    public static boolean startsFusion(int opcode) {
+        return FIRST[opcode];
+    }
+
+    /// The opcode of the third instruction, or -1 if fusion is a pair.
+    public static int third(int fusion) {
+        return OPCODES[fusion].length > 2 ? OPCODES[fusion][2] : -1;
+    }
+
+    public static int[] getOpcodes(int fusion) {
+        return OPCODES[fusion].clone();
+    }
+
+    public static String getName(int fusion) {
+        return NAMES[fusion];
+    }
+
+    private static final byte[] PAIRS = new byte[0x10000];
+    private static final boolean[] FIRST = new boolean[0x100];
+    private static final int[][] OPCODES = new int[FUSIONS][];
+    private static final String[] NAMES = new String[FUSIONS];
+
+    static {
+        OPCODES[NONE] = new int[0];
+        NAMES[NONE] = "NONE";
+
+        register(DEX_BNE, "DEX BNE", 0xCA, 0xD0);
+        register(DEY_BNE, "DEY BNE", 0x88, 0xD0);
+        register(INX_BNE, "INX BNE", 0xE8, 0xD0);
+        register(INY_BNE, "INY BNE", 0xC8, 0xD0);
+        register(DEX_BPL, "DEX BPL", 0xCA, 0x10);
+        register(DEY_BPL, "DEY BPL", 0x88, 0x10);
+
+        register(LDA_ABSOLUTE_X_STA_ABSOLUTE_Y, "LDA abs,X STA abs,Y", 0xBD, 0x99);
+        register(LDA_ABSOLUTE_Y_STA_ABSOLUTE_Y, "LDA abs,Y STA abs,Y", 0xB9, 0x99);
+        register(LDA_ABSOLUTE_X_STA_ABSOLUTE_X, "LDA abs,X STA abs,X", 0xBD, 0x9D);
+        register(LDA_INDIRECT_Y_STA_INDIRECT_Y, "LDA (zp),Y STA (zp),Y", 0xB1, 0x91);
+
+        register(CMP_IMMEDIATE_BEQ, "CMP #imm BEQ", 0xC9, 0xF0);
+        register(CMP_IMMEDIATE_BNE, "CMP #imm BNE", 0xC9, 0xD0);
+        register(CPX_IMMEDIATE_BEQ, "CPX #imm BEQ", 0xE0, 0xF0);
+        register(CPX_IMMEDIATE_BNE, "CPX #imm BNE", 0xE0, 0xD0);
+        register(CPY_IMMEDIATE_BEQ, "CPY #imm BEQ", 0xC0, 0xF0);
+        register(CPY_IMMEDIATE_BNE, "CPY #imm BNE", 0xC0, 0xD0);
+
+        register(INX_CPX_IMMEDIATE_BNE, "INX CPX #imm BNE", 0xE8, 0xE0, 0xD0);
+        register(INY_CPY_IMMEDIATE_BNE, "INY CPY #imm BNE", 0xC8, 0xC0, 0xD0);
+    }
+
+    private static void register(int fusion, String name, int... opcodes) {
+        OPCODES[fusion] = opcodes;
+        NAMES[fusion] = name;
+        PAIRS[(opcodes[0] << 8) | opcodes[1]] = (byte) fusion;
+        FIRST[opcodes[0]] = true;
+    }
+}
@@ -0,0 +1,357 @@
+package nazario.emulator;
+
+import nazario.emulator.util.StopReason;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/// Runs a program one instruction at a time and compares the state before every instruction with a reference trace, stopping at the first divergence.
+///
+/// The reference is read as a stream and only the last few records are kept for the context window, so memory use does not depend on the length of the trace.
+/// Supported references are
+/// - logs with the register layout of nestest, `C000  4C F5 C5  JMP $C5F5  A:00 X:00 Y:00 P:24 SP:FD ... CYC:7`, where everything but the program counter is optional,
+/// - tables with a header row naming the columns `pc`, `a`, `x`, `y`, `p`, `s` or `sp` and `cycle`, as exported from Visual6502. If there is a `sync` column only rows with sync set are instructions,
+/// - binary traces written by {@link ExecutionTracer}.
+///
+/// Cycle counts are compared relative to the first record, the break and unused bits of P are never compared.
+public class TraceDiff {
+    public static final int OPCODE = 1;
+    public static final int A = 1 << 1;
+    public static final int X = 1 << 2;
+    public static final int Y = 1 << 3;
+    public static final int P = 1 << 4;
+    public static final int SP = 1 << 5;
+    public static final int CYCLES = 1 << 6;
+    public static final int ALL = OPCODE | A | X | Y | P | SP | CYCLES;
+
+    private static final int UNKNOWN = -1;
+    private static final int STATUS_MASK = ~(PackedRegistrars.BREAK | PackedRegistrars.UNUSED) & 0xFF;
+
+    protected final Cpu cpu;
+    protected final int compared;
+    protected final String[] context;
+    protected long contextCount;
+
+    public TraceDiff(Cpu cpu, int compared, int contextLines) {
+        this.cpu = cpu;
+        this.compared = compared;
+        this.context = new String[contextLines];
+    }
+
+    /// Compares every record of reference with the cpu, prints the context window and the divergence to out.
+    ///
+    /// Returns the index of the first diverging record, or -1 if the whole reference matched.
+    public long compare(Reference reference, PrintStream out) throws IOException {
+        PackedRegistrars registrars = this.cpu.getPackedRegistrars();
+        long cycleOffset = Long.MIN_VALUE;
+        long index = 0;
+
+        for(;reference.next();index++) {
+            int pc = this.cpu.getProgramCounter();
+            if(cycleOffset == Long.MIN_VALUE && reference.cycles != UNKNOWN) cycleOffset = reference.cycles - this.cpu.getCycles();
+
+            String mismatch = null;
+            if(reference.pc != pc) mismatch = field("PC", reference.pc, pc, 4);
+            else if((this.compared & OPCODE) != 0 && reference.opcode != UNKNOWN && reference.opcode != (this.cpu.getMemory().getValue(pc) & 0xFF)) mismatch = field("opcode", reference.opcode, this.cpu.getMemory().getValue(pc) & 0xFF, 2);
+            else if((this.compared & A) != 0 && reference.accumulator != UNKNOWN && reference.accumulator != (registrars.getAccumulator() & 0xFF)) mismatch = field("A", reference.accumulator, registrars.getAccumulator() & 0xFF, 2);
+            else if((this.compared & X) != 0 && reference.registerX != UNKNOWN && reference.registerX != (registrars.getRegisterX() & 0xFF)) mismatch = field("X", reference.registerX, registrars.getRegisterX() & 0xFF, 2);
+            else if((this.compared & Y) != 0 && reference.registerY != UNKNOWN && reference.registerY != (registrars.getRegisterY() & 0xFF)) mismatch = field("Y", reference.registerY, registrars.getRegisterY() & 0xFF, 2);
+            else if((this.compared & P) != 0 && reference.status != UNKNOWN && (reference.status & STATUS_MASK) != (registrars.getProcessorStatus() & STATUS_MASK)) mismatch = field("P", reference.status, registrars.getProcessorStatus() & 0xFF, 2);
+            else if((this.compared & SP) != 0 && reference.stackPointer != UNKNOWN && reference.stackPointer != (this.cpu.getMemory().getStackPointer() & reference.stackPointerMask)) mismatch = field("SP", reference.stackPointer, this.cpu.getMemory().getStackPointer() & reference.stackPointerMask, reference.stackPointerMask == 0xFF ? 2 : 4);
+            else if((this.compared & CYCLES) != 0 && reference.cycles != UNKNOWN && reference.cycles != this.cpu.getCycles() + cycleOffset) mismatch = "CYC expected " + reference.cycles + ", was " + (this.cpu.getCycles() + cycleOffset);
+
+            if(mismatch != null) {
+                report(out, index, mismatch, reference.describe());
+                return index;
+            }
+
+            int reason = this.cpu.step();
+            if(reason != StopReason.NONE) {
+                // The reference goes on, unless this was its last record
+                String line = reference.describe();
+                if(!reference.next()) {
+                    out.println("Reference ended, emulator stopped with " + StopReason.getName(reason) + " after " + (index + 1) + " instructions");
+                    return -1;
+                }
+                remember(line);
+                report(out, index + 1, "emulator stopped with " + StopReason.getName(reason), reference.describe());
+                return index + 1;
+            }
+            remember(reference.describe());
+        }
+
+        out.println("All " + index + " instructions match");
+        return -1;
+    }
+
+    private void remember(String line) {
+        if(this.context.length == 0) return;
+        this.context[(int) (this.contextCount++ % this.context.length)] = line;
+    }
+
+    private void report(PrintStream out, long index, String mismatch, String referenceLine) {
+        out.println("Divergence at instruction " + index + ": " + mismatch);
+
+        long first = Math.max(0, this.contextCount - this.context.length);
+        for(long i = first;i<this.contextCount;i++) out.println("  ref " + this.context[(int) (i % this.context.length)]);
+        out.println("> ref " + referenceLine);
+
+        PackedRegistrars registrars = this.cpu.getPackedRegistrars();
+        int pc = this.cpu.getProgramCounter();
+        out.printf("> emu %04X  %02X  A:%02X X:%02X Y:%02X P:%02X SP:%04X CYC:%d%n", pc, this.cpu.getMemory().getValue(pc) & 0xFF, registrars.getAccumulator() & 0xFF, registrars.getRegisterX() & 0xFF,
+                registrars.getRegisterY() & 0xFF, registrars.getProcessorStatus() & 0xFF, this.cpu.getMemory().getStackPointer() & 0xFFFF, this.cpu.getCycles());
+    }
+
+    private static String field(String name, int expected, int actual, int digits) {
+        String format = "%s expected %0" + digits + "X, was %0" + digits + "X";
+        return String.format(format, name, expected, actual);
+    }
+
+    //region * References *
+    /// The state before one instruction of a reference trace, fields the reference does not contain are -1.
+    public abstract static class Reference implements Closeable {
+        protected int pc;
+        protected int opcode;
+        protected int accumulator;
+        protected int registerX;
+        protected int registerY;
+        protected int status;
+        protected int stackPointer;
+        protected int stackPointerMask;
+        protected long cycles;
+
+        /// Reads the next record, returns `false` at the end of the reference.
+        public abstract boolean next() throws IOException;
+
+        /// The current record for the context window.
+        public abstract String describe();
+
+        protected void clear() {
+            this.opcode = this.accumulator = this.registerX = this.registerY = this.status = this.stackPointer = UNKNOWN;
+            this.stackPointerMask = 0xFFFF;
+            this.cycles = UNKNOWN;
+        }
+
+        /// Opens a binary {@link ExecutionTracer} trace or a text log.
+        public static Reference open(Path path) throws IOException {
+            try(InputStream inputStream = Files.newInputStream(path)) {
+                byte[] magic = inputStream.readNBytes(2);
+                if(magic.length == 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) return new BinaryReference(TraceReader.open(path));
+            }
+            return new TextReference(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+        }
+    }
+
+    /// Reads nestest style logs and tables with a header row.
+    public static class TextReference extends Reference {
+        protected final BufferedReader reader;
+        protected String line;
+        protected String[] columns;
+        protected boolean first = true;
+
+        public TextReference(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while((this.line = this.reader.readLine()) != null) {
+                String line = this.line.strip();
+                if(line.isEmpty() || line.startsWith("#")) continue;
+
+                if(this.first) {
+                    this.first = false;
+                    if(!isHex(line, 0, 4)) {
+                        this.columns = line.toLowerCase().split("\\s+");
+                        if(Arrays.asList(this.columns).contains("pc")) continue;
+                        throw new IOException("Neither a log nor a table with a pc column: " + line);
+                    }
+                }
+
+                clear();
+                if(this.columns != null ? parseRow(line) : parseLog(line)) return true;
+            }
+            return false;
+        }
+
+        private boolean parseLog(String line) throws IOException {
+            if(!isHex(line, 0, 4)) throw new IOException("Log line does not start with a program counter: " + line);
+            this.pc = Integer.parseInt(line, 0, 4, 16);
+            if(line.length() >= 8 && line.charAt(4) == ' ' && line.charAt(5) == ' ' && isHex(line, 6, 2) && (line.length() == 8 || line.charAt(8) == ' ')) this.opcode = Integer.parseInt(line, 6, 8, 16);
+
+            this.accumulator = hexField(line, "A:");
+            this.registerX = hexField(line, "X:");
+            this.registerY = hexField(line, "Y:");
+            this.status = hexField(line, "P:");
+            this.stackPointer = hexField(line, "SP:");
+            this.stackPointerMask = fieldLength(line, "SP:") <= 2 ? 0xFF : 0xFFFF;
+
+            int cycles = line.indexOf(" CYC:");
+            if(cycles != -1) {
+                int start = cycles + 5;
+                int end = start;
+                while(end < line.length() && Character.isDigit(line.charAt(end))) end++;
+                if(end > start) this.cycles = Long.parseLong(line, start, end, 10);
+            }
+            return true;
+        }
+
+        private boolean parseRow(String line) throws IOException {
+            String[] values = line.split("\\s+");
+            if(values.length < this.columns.length) throw new IOException("Row has fewer columns than the header: " + line);
+
+            for(int i = 0;i<this.columns.length;i++) {
+                String value = values[i];
+                switch(this.columns[i]) {
+                    case "sync" -> {
+                        if(Integer.parseInt(value) == 0) return false;
+                    }
+                    case "pc" -> this.pc = Integer.parseInt(value, 16);
+                    case "a" -> this.accumulator = Integer.parseInt(value, 16);
+                    case "x" -> this.registerX = Integer.parseInt(value, 16);
+                    case "y" -> this.registerY = Integer.parseInt(value, 16);
+                    case "p" -> this.status = Integer.parseInt(value, 16);
+                    case "s", "sp" -> {
+                        this.stackPointer = Integer.parseInt(value, 16);
+                        this.stackPointerMask = value.length() <= 2 ? 0xFF : 0xFFFF;
+                    }
+                    case "cycle", "cyc" -> this.cycles = Long.parseLong(value);
+                    default -> {}
+                }
+            }
+            return true;
+        }
+
+        /// Parses the hex digits following key, which has to start the line or follow a space, or returns -1.
+        private static int hexField(String line, String key) {
+            int index = keyIndex(line, key);
+            if(index == -1) return UNKNOWN;
+
+            int length = fieldLength(line, key);
+            return length == 0 ? UNKNOWN : Integer.parseInt(line, index + key.length(), index + key.length() + length, 16);
+        }
+
+        private static int fieldLength(String line, String key) {
+            int index = keyIndex(line, key);
+            if(index == -1) return 0;
+
+            int start = index + key.length();
+            int end = start;
+            while(end < line.length() && Character.digit(line.charAt(end), 16) != -1) end++;
+            return end - start;
+        }
+
+        private static int keyIndex(String line, String key) {
+            int index = line.indexOf(key);
+            while(index > 0 && line.charAt(index - 1) != ' ') index = line.indexOf(key, index + 1);
+            return index;
+        }
+
+        private static boolean isHex(String line, int start, int length) {
+            if(line.length() < start + length) return false;
+            for(int i = start;i<start + length;i++) {
+                if(Character.digit(line.charAt(i), 16) == -1) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String describe() {
+            return this.line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+    }
+
+    /// Reads a trace written by {@link ExecutionTracer}, a trace with dropped records can not be compared past the first gap.
+    public static class BinaryReference extends Reference {
+        protected final TraceReader reader;
+
+        public BinaryReference(TraceReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if(!this.reader.next()) return false;
+            if(this.reader.getGap() != 0) throw new IOException("Reference trace dropped " + this.reader.getGap() + " records before record " + this.reader.getIndex());
+
+            this.pc = this.reader.getProgramCounter();
+            this.opcode = this.reader.getOpcode();
+            this.accumulator = this.reader.getAccumulator();
+            this.registerX = this.reader.getRegisterX();
+            this.registerY = this.reader.getRegisterY();
+            this.status = this.reader.getProcessorStatus();
+            this.stackPointer = this.reader.getStackPointer();
+            this.stackPointerMask = 0xFFFF;
+            this.cycles = this.reader.getCycles();
+            return true;
+        }
+
+        @Override
+        public String describe() {
+            return this.reader.format();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+    }
+    //endregion
+
+    /// Usage: `<program> <reference> [--load-address a] [--start pc] [--context n] [--ignore opcode,a,x,y,p,sp,cyc] [--illegal-opcodes]`
+    ///
+    /// The program starts at its reset vector unless a start address is given. Exits with status 1 if the traces diverge.
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean illegalOpcodes = arguments.remove("--illegal-opcodes");
+        String loadAddress = option(arguments, "--load-address", "0x0600");
+        String start = option(arguments, "--start", null);
+        int contextLines = Integer.parseInt(option(arguments, "--context", "10"));
+
+        int compared = ALL;
+        for(String field : option(arguments, "--ignore", "").split(",")) {
+            compared &= ~switch(field.strip().toLowerCase()) {
+                case "" -> 0;
+                case "opcode", "op" -> OPCODE;
+                case "a" -> A;
+                case "x" -> X;
+                case "y" -> Y;
+                case "p" -> P;
+                case "sp", "s" -> SP;
+                case "cyc", "cycles" -> CYCLES;
+                default -> throw new IllegalArgumentException("Unknown field " + field);
+            };
+        }
+
+        Memory memory = new Memory();
+        ProgramLoader.load(Path.of(arguments.get(0)), Integer.decode(loadAddress), memory);
+        Cpu cpu = new Cpu(memory, new Registrars(), illegalOpcodes);
+        cpu.reset();
+        if(start != null) cpu.setProgramCounter(Integer.decode(start));
+
+        long divergence;
+        try(Reference reference = Reference.open(Path.of(arguments.get(1)))) {
+            divergence = new TraceDiff(cpu, compared, contextLines).compare(reference, System.out);
+        }
+        if(divergence != -1) System.exit(1);
+    }
+
+    /// Removes the option and its value from arguments and returns the value, or fallback if the option is missing.
+    private static String option(List<String> arguments, String name, String fallback) {
+        int index = arguments.indexOf(name);
+        if(index == -1) return fallback;
+
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
+}
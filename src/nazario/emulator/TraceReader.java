@@ -0,0 +1,146 @@
+package nazario.emulator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/// Streams the records of a trace written by {@link ExecutionTracer}, one record at a time and without allocating per record.
+///
+/// The fields of the current record are valid until the next call of {@link #next()}.
+public class TraceReader implements Closeable {
+    protected final InputStream inputStream;
+
+    protected int pc;
+    protected int opcode;
+    protected int accumulator;
+    protected int registerX;
+    protected int registerY;
+    protected int status;
+    protected int stackPointer;
+    protected long cycles;
+    protected long gap;
+    protected long index = -1;
+
+    public TraceReader(InputStream inputStream) throws IOException {
+        this.inputStream = new BufferedInputStream(new GZIPInputStream(inputStream, 1 << 16), 1 << 16);
+
+        DataInputStream header = new DataInputStream(this.inputStream);
+        if(header.readInt() != ExecutionTracer.MAGIC) throw new IOException("Not an execution trace");
+        int version = header.readUnsignedByte();
+        if(version != ExecutionTracer.VERSION) throw new IOException("Unsupported trace version " + version);
+    }
+
+    public static TraceReader open(Path path) throws IOException {
+        return new TraceReader(Files.newInputStream(path));
+    }
+
+    /// Reads the next record, returns `false` at the end of the trace.
+    public boolean next() throws IOException {
+        this.gap = 0;
+        int tag;
+        while((tag = this.inputStream.read()) == ExecutionTracer.GAP) this.gap += readVarLong();
+        if(tag == -1) return false;
+
+        int previous = this.opcode;
+        this.opcode = readByte();
+        this.pc = (tag & ExecutionTracer.SEQUENTIAL_PC) != 0 ? (this.pc + Cpu.LENGTHS[previous]) & 0xFFFF : (this.pc + (int) unzigzag(readVarLong())) & 0xFFFF;
+        this.cycles += (tag & ExecutionTracer.BASE_CYCLES) != 0 ? Cpu.CYCLES[previous] : unzigzag(readVarLong());
+        if((tag & ExecutionTracer.CHANGED_A) != 0) this.accumulator = readByte();
+        if((tag & ExecutionTracer.CHANGED_X) != 0) this.registerX = readByte();
+        if((tag & ExecutionTracer.CHANGED_Y) != 0) this.registerY = readByte();
+        if((tag & ExecutionTracer.CHANGED_P) != 0) this.status = readByte();
+        if((tag & ExecutionTracer.CHANGED_SP) != 0) this.stackPointer = readByte() | readByte() << 8;
+
+        this.index += this.gap + 1;
+        return true;
+    }
+
+    public int getProgramCounter() {
+        return this.pc;
+    }
+
+    public int getOpcode() {
+        return this.opcode;
+    }
+
+    public int getAccumulator() {
+        return this.accumulator;
+    }
+
+    public int getRegisterX() {
+        return this.registerX;
+    }
+
+    public int getRegisterY() {
+        return this.registerY;
+    }
+
+    public int getProcessorStatus() {
+        return this.status;
+    }
+
+    public int getStackPointer() {
+        return this.stackPointer;
+    }
+
+    public long getCycles() {
+        return this.cycles;
+    }
+
+    /// Number of records dropped right before the current one because the ring of the tracer was full, after the end of the trace the number dropped at the very end.
+    public long getGap() {
+        return this.gap;
+    }
+
+    /// Position of the current record in the traced run, counting dropped records.
+    public long getIndex() {
+        return this.index;
+    }
+
+    /// Formats the current record as `PC  OP  A:.. X:.. Y:.. P:.. SP:.... CYC:..`, the register layout of nestest logs.
+    public String format() {
+        return String.format("%04X  %02X  A:%02X X:%02X Y:%02X P:%02X SP:%04X CYC:%d", this.pc, this.opcode, this.accumulator, this.registerX, this.registerY, this.status, this.stackPointer, this.cycles);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inputStream.close();
+    }
+
+    private int readByte() throws IOException {
+        int value = this.inputStream.read();
+        if(value == -1) throw new EOFException("Truncated trace record");
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for(int shift = 0;shift<64;shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /// Usage: `<trace> [text file]`
+    ///
+    /// Converts a trace to text, one line per record, written to standard output unless a text file is given.
+    public static void main(String[] args) throws IOException {
+        try(TraceReader reader = open(Path.of(args[0]));
+            Writer writer = new BufferedWriter(args.length > 1 ? Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8) : new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            while(reader.next()) {
+                if(reader.getGap() != 0) writer.write("... " + reader.getGap() + " records dropped\n");
+                writer.write(reader.format());
+                writer.write('\n');
+            }
+            if(reader.getGap() != 0) writer.write("... " + reader.getGap() + " records dropped\n");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package nazario.emulator.util;
+
+import java.util.Map;
+
+/// Result of one program run by {@link nazario.emulator.BatchRunner BatchRunner}, written as one line of JSON.
+///
+/// error is null if the program ran, format is null if it could not be loaded, ranges maps `"start-end"` to the hex dump of that memory range.
+public record BatchResult(String program, String format, String status, String error, long instructions, long cycles, long nanos,
+                          int programCounter, int accumulator, int registerX, int registerY, int stackPointer, int processorStatus,
+                          String memoryHash, Map<String, String> ranges) {
+    public String toJson() {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append("{\"program\":");
+        quote(builder, program);
+        builder.append(",\"status\":");
+        quote(builder, status);
+        if(format != null) {
+            builder.append(",\"format\":");
+            quote(builder, format);
+        }
+        if(error != null) {
+            builder.append(",\"error\":");
+            quote(builder, error);
+            return builder.append('}').toString();
+        }
+
+        builder.append(",\"instructions\":").append(instructions);
+        builder.append(",\"cycles\":").append(cycles);
+        builder.append(",\"nanos\":").append(nanos);
+        builder.append(",\"pc\":").append(programCounter);
+        builder.append(",\"a\":").append(accumulator);
+        builder.append(",\"x\":").append(registerX);
+        builder.append(",\"y\":").append(registerY);
+        builder.append(",\"sp\":").append(stackPointer);
+        builder.append(",\"p\":").append(processorStatus);
+        builder.append(",\"memoryHash\":");
+        quote(builder, memoryHash);
+
+        builder.append(",\"ranges\":{");
+        boolean first = true;
+        for(Map.Entry<String, String> range : ranges.entrySet()) {
+            if(!first) builder.append(',');
+            first = false;
+            quote(builder, range.getKey());
+            builder.append(':');
+            quote(builder, range.getValue());
+        }
+        return builder.append("}}").toString();
+    }
+
+    private static void quote(StringBuilder builder, String value) {
+        builder.append('"');
+        for(int i = 0;i<value.length();i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if(c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+                    else builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,350 @@
+package nazario.emulator.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Minimal writer for JVM class files, just enough for the classes generated by {@link nazario.emulator.BlockCompiler}.
+///
+/// Classes are written with class file version 49, which is verified without stack map frames, so branches only need {@link Label}s and no frame computation.
+///
+/// https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html
+public class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    private final ByteBuffer constantPool = new ByteBuffer();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int constantCount = 1;
+
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<ByteBuffer> methods = new ArrayList<>();
+
+    /// Names are internal names, e.g. `java/lang/Object`.
+    public ClassFileWriter(int access, String name, String superName, String... interfaceNames) {
+        this.access = access;
+        this.thisClass = classConstant(name);
+        this.superClass = classConstant(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for(int i = 0;i<interfaceNames.length;i++) this.interfaces[i] = classConstant(interfaceNames[i]);
+    }
+
+    //region * Constant Pool *
+    public int utf8(String value) {
+        Integer index = this.constants.get("U" + value);
+        if(index != null) return index;
+
+        ByteBuffer buffer = this.constantPool;
+        buffer.u1(1);
+        buffer.utf(value);
+        return add("U" + value);
+    }
+
+    public int classConstant(String name) {
+        Integer index = this.constants.get("C" + name);
+        if(index != null) return index;
+
+        int nameIndex = utf8(name);
+        this.constantPool.u1(7);
+        this.constantPool.u2(nameIndex);
+        return add("C" + name);
+    }
+
+    public int integer(int value) {
+        Integer index = this.constants.get("I" + value);
+        if(index != null) return index;
+
+        this.constantPool.u1(3);
+        this.constantPool.u4(value);
+        return add("I" + value);
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        String key = "M" + tag + owner + "." + name + descriptor;
+        Integer index = this.constants.get(key);
+        if(index != null) return index;
+
+        int ownerIndex = classConstant(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        this.constantPool.u1(tag);
+        this.constantPool.u2(ownerIndex);
+        this.constantPool.u2(nameAndType);
+        return add(key);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = this.constants.get(key);
+        if(index != null) return index;
+
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        this.constantPool.u1(12);
+        this.constantPool.u2(nameIndex);
+        this.constantPool.u2(descriptorIndex);
+        return add(key);
+    }
+
+    private int add(String key) {
+        int index = this.constantCount++;
+        this.constants.put(key, index);
+        return index;
+    }
+    //endregion
+
+    /// Starts a method, its bytecode is added to the class by {@link Code#end(int, int)}.
+    public Code method(int access, String name, String descriptor) {
+        return new Code(access, utf8(name), utf8(descriptor));
+    }
+
+    public byte[] toByteArray() {
+        ByteBuffer buffer = new ByteBuffer();
+        buffer.u4(0xCAFEBABE);
+        buffer.u2(0);
+        buffer.u2(VERSION);
+        buffer.u2(this.constantCount);
+        buffer.bytes(this.constantPool);
+        buffer.u2(this.access);
+        buffer.u2(this.thisClass);
+        buffer.u2(this.superClass);
+        buffer.u2(this.interfaces.length);
+        for(int index : this.interfaces) buffer.u2(index);
+        buffer.u2(0); // fields
+        buffer.u2(this.methods.size());
+        for(ByteBuffer method : this.methods) buffer.bytes(method);
+        buffer.u2(0); // attributes
+        return buffer.toByteArray();
+    }
+
+    /// Bytecode of a single method, the instructions are named after their opcodes.
+    public class Code {
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final ByteBuffer code = new ByteBuffer();
+
+        private Code(int access, int name, int descriptor) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        public Code aload(int local) {
+            return local(0x19, 0x2A, local);
+        }
+
+        public Code iload(int local) {
+            return local(0x15, 0x1A, local);
+        }
+
+        public Code lload(int local) {
+            return local(0x16, 0x1E, local);
+        }
+
+        public Code istore(int local) {
+            return local(0x36, 0x3B, local);
+        }
+
+        private Code local(int opcode, int shortOpcode, int local) {
+            if(local < 4) {
+                this.code.u1(shortOpcode + local);
+            } else {
+                this.code.u1(opcode);
+                this.code.u1(local);
+            }
+            return this;
+        }
+
+        public Code iinc(int local, int increment) {
+            this.code.u1(0x84);
+            this.code.u1(local);
+            this.code.u1(increment);
+            return this;
+        }
+
+        /// Pushes an int constant with the shortest instruction for it.
+        public Code push(int value) {
+            if(value >= -1 && value <= 5) {
+                this.code.u1(0x03 + value);
+            } else if(value == (byte) value) {
+                this.code.u1(0x10);
+                this.code.u1(value);
+            } else if(value == (short) value) {
+                this.code.u1(0x11);
+                this.code.u2(value);
+            } else {
+                this.code.u1(0x13);
+                this.code.u2(integer(value));
+            }
+            return this;
+        }
+
+        public Code getfield(String owner, String name, String descriptor) {
+            this.code.u1(0xB4);
+            this.code.u2(fieldRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code invokevirtual(String owner, String name, String descriptor) {
+            this.code.u1(0xB6);
+            this.code.u2(methodRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code invokestatic(String owner, String name, String descriptor) {
+            this.code.u1(0xB8);
+            this.code.u2(methodRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code invokespecial(String owner, String name, String descriptor) {
+            this.code.u1(0xB7);
+            this.code.u2(methodRef(owner, name, descriptor));
+            return this;
+        }
+
+        public Code ifeq(Label label) {
+            return jump(0x99, label);
+        }
+
+        public Code ifne(Label label) {
+            return jump(0x9A, label);
+        }
+
+        public Code ifIcmplt(Label label) {
+            return jump(0xA1, label);
+        }
+
+        public Code goTo(Label label) {
+            return jump(0xA7, label);
+        }
+
+        private Code jump(int opcode, Label label) {
+            int position = this.code.size();
+            this.code.u1(opcode);
+            if(label.position >= 0) {
+                this.code.u2(label.position - position);
+            } else {
+                label.addReference(position);
+                this.code.u2(0);
+            }
+            return this;
+        }
+
+        /// Binds label to the current position and patches the jumps to it that were written before.
+        public Code bind(Label label) {
+            label.position = this.code.size();
+            for(int i = 0;i<label.referenceCount;i++) {
+                int reference = label.references[i];
+                this.code.set2(reference + 1, label.position - reference);
+            }
+            return this;
+        }
+
+        public Code ireturn() {
+            this.code.u1(0xAC);
+            return this;
+        }
+
+        public Code vreturn() {
+            this.code.u1(0xB1);
+            return this;
+        }
+
+        public int size() {
+            return this.code.size();
+        }
+
+        /// Adds the method to the class.
+        public void end(int maxStack, int maxLocals) {
+            int codeAttribute = utf8("Code");
+
+            ByteBuffer method = new ByteBuffer();
+            method.u2(this.access);
+            method.u2(this.name);
+            method.u2(this.descriptor);
+            method.u2(1);
+            method.u2(codeAttribute);
+            method.u4(12 + this.code.size());
+            method.u2(maxStack);
+            method.u2(maxLocals);
+            method.u4(this.code.size());
+            method.bytes(this.code);
+            method.u2(0); // exception table
+            method.u2(0); // attributes
+            ClassFileWriter.this.methods.add(method);
+        }
+    }
+
+    /// A position in the bytecode of a {@link Code}, it can be jumped to before it is bound.
+    public static class Label {
+        private int position = -1;
+        private int[] references = new int[2];
+        private int referenceCount;
+
+        private void addReference(int position) {
+            if(this.referenceCount == this.references.length) this.references = Arrays.copyOf(this.references, this.referenceCount * 2);
+            this.references[this.referenceCount++] = position;
+        }
+    }
+
+    /// Growable big endian byte array.
+    private static class ByteBuffer {
+        private byte[] data = new byte[64];
+        private int size;
+
+        void u1(int value) {
+            if(this.size == this.data.length) this.data = Arrays.copyOf(this.data, this.size * 2);
+            this.data[this.size++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        void u4(int value) {
+            u2(value >> 16);
+            u2(value);
+        }
+
+        void set2(int position, int value) {
+            this.data[position] = (byte)(value >> 8);
+            this.data[position + 1] = (byte) value;
+        }
+
+        /// Writes a string in the modified UTF-8 of the class file format, the generated names are plain ASCII.
+        void utf(String value) {
+            u2(value.length());
+            for(int i = 0;i<value.length();i++) u1(value.charAt(i));
+        }
+
+        void bytes(ByteBuffer buffer) {
+            for(int i = 0;i<buffer.size;i++) u1(buffer.data[i]);
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.data, this.size);
+        }
+    }
+}
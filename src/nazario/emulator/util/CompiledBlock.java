@@ -0,0 +1,11 @@
+package nazario.emulator.util;
+
+import nazario.emulator.Cpu;
+
+/// A basic block translated into JVM bytecode by {@link nazario.emulator.BlockCompiler BlockCompiler}.
+public interface CompiledBlock {
+    /// Executes the block on cpu, counting its instructions and cycles, and returns the address of the next instruction to execute.
+    ///
+    /// A block that loops on itself stops looping once the cycles of cpu reach cycleLimit, a block always runs through once.
+    int execute(Cpu cpu, long cycleLimit);
+}
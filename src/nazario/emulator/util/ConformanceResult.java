@@ -0,0 +1,18 @@
+package nazario.emulator.util;
+
+/// Outcome of one {@link ConformanceTest}, status is PASS, FAIL or SKIPPED if the image is missing.
+///
+/// detail says where the test ended, nanos is the fastest of the repeated runs.
+public record ConformanceResult(ConformanceTest test, String status, String detail, long instructions, long cycles, long nanos) {
+    public boolean passed() {
+        return this.status.equals("PASS");
+    }
+
+    public double instructionsPerSecond() {
+        return this.nanos == 0 ? 0 : this.instructions * 1e9 / this.nanos;
+    }
+
+    public double cyclesPerSecond() {
+        return this.nanos == 0 ? 0 : this.cycles * 1e9 / this.nanos;
+    }
+}
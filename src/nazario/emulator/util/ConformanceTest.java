@@ -0,0 +1,11 @@
+package nazario.emulator.util;
+
+/// A functional test image run by {@link nazario.emulator.ConformanceRunner ConformanceRunner}.
+///
+/// The test passes if it ends in its success trap, or if it has none, if it stops with the byte at errorAddress being zero. successAddress and errorAddress are -1 if the test has none.
+public record ConformanceTest(String name, String fileName, int loadAddress, int startAddress, int successAddress, int errorAddress) {
+    /// Klaus Dormann's 6502_functional_test as shipped in the bin_files of his repository, a 64K image that starts at $0400 and traps at $3469 once every test passed.
+    public static final ConformanceTest FUNCTIONAL = new ConformanceTest("functional", "6502_functional_test.bin", 0x0000, 0x0400, 0x3469, -1);
+    /// Klaus Dormann's 6502_decimal_test assembled at $0200, it ends with a BRK and leaves 0 in ERROR at $000B if every result was correct.
+    public static final ConformanceTest DECIMAL = new ConformanceTest("decimal", "6502_decimal_test.bin", 0x0200, 0x0200, -1, 0x000B);
+}
@@ -0,0 +1,9 @@
+package nazario.emulator.util;
+
+/// Result of loading a file with {@link nazario.emulator.ProgramLoader ProgramLoader}, startAddress is also stored in the reset vector.
+public record LoadedProgram(ProgramFormat format, int startAddress, int segments, int bytes) {
+    @Override
+    public String toString() {
+        return String.format("%s, %d segments, %d bytes, start $%04X", format, segments, bytes, startAddress);
+    }
+}
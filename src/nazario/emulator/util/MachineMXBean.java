@@ -0,0 +1,28 @@
+package nazario.emulator.util;
+
+/// Live metrics of one running machine, registered with the platform MBean server by {@link nazario.emulator.MachineMonitor MachineMonitor} so JConsole and VisualVM can watch it.
+///
+/// The rates cover the last 1, 10 or 60 seconds of samples, taken once a second.
+public interface MachineMXBean {
+    int getMachineId();
+
+    long getInstructionCount();
+
+    long getCycles();
+
+    int getProgramCounter();
+
+    boolean isRunning();
+
+    /// Name of the {@link StopReason} of the last run, NONE while the first run has not stopped yet.
+    String getStopReason();
+
+    double getInstructionsPerSecond1s();
+
+    double getInstructionsPerSecond10s();
+
+    double getInstructionsPerSecond60s();
+
+    /// Cycles per second of the last 10 seconds, in MHz.
+    double getEffectiveMHz();
+}
@@ -0,0 +1,10 @@
+package nazario.emulator.util;
+
+/// A memory-mapped device, mapped over one or more pages with {@link nazario.emulator.Memory#mapDevice(int, int, MemoryDevice) Memory.mapDevice}.
+///
+/// Both methods get the full 16 bit address, so a device mapped over several pages can tell its registers apart.
+public interface MemoryDevice {
+    byte read(int address);
+
+    void write(int address, byte value);
+}
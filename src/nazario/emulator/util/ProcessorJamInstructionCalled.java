@@ -1,7 +1,10 @@
 package nazario.emulator.util;
 
+/// Thrown by the JAM handler of {@link nazario.emulator.IllegalInstructionSet IllegalInstructionSet}, {@link nazario.emulator.Cpu Cpu} returns {@link StopReason#JAM} instead.
+///
+/// The stack trace is not captured, a JAM is an ordinary outcome of running fuzzed programs.
 public class ProcessorJamInstructionCalled extends RuntimeException {
     public ProcessorJamInstructionCalled(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
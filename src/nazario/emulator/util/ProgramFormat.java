@@ -0,0 +1,46 @@
+package nazario.emulator.util;
+
+/// File formats understood by {@link nazario.emulator.ProgramLoader ProgramLoader}.
+public enum ProgramFormat {
+    /// Plain bytes, loaded at an address given by the caller.
+    RAW,
+    /// Commodore program file, a little endian load address followed by the bytes.
+    PRG,
+    /// Intel HEX records, `:` followed by hex digits on every line.
+    INTEL_HEX,
+    /// Motorola S-records, `S1`, `S2` or `S3` data records and `S7`, `S8` or `S9` start records.
+    S_RECORD,
+    /// NES cartridge image with the `NES<EOF>` header, only mapper 0 (NROM) is loaded.
+    INES,
+    /// Binary with several segments, $FFFF followed by a start and an inclusive end address and the bytes of every segment, the header may be repeated before a segment.
+    SEGMENTED;
+
+    /// Takes the format from the extension of fileName if it names one, otherwise guesses it from the first bytes of the file.
+    ///
+    /// So a `.bin` or `.rom` image is always raw, even if its first bytes look like a header or a text record.
+    public static ProgramFormat detect(String fileName, byte[] header, int length) {
+        ProgramFormat format = fromExtension(fileName);
+        if(format != null) return format;
+
+        if(length >= 4 && header[0] == 'N' && header[1] == 'E' && header[2] == 'S' && header[3] == 0x1A) return INES;
+        if(length >= 1 && header[0] == ':') return INTEL_HEX;
+        if(length >= 2 && header[0] == 'S' && header[1] >= '0' && header[1] <= '9') return S_RECORD;
+        if(length >= 2 && header[0] == (byte) 0xFF && header[1] == (byte) 0xFF) return SEGMENTED;
+        return RAW;
+    }
+
+    /// Returns the format named by the extension of fileName, or null if it has no extension of a known format.
+    public static ProgramFormat fromExtension(String fileName) {
+        String name = fileName.toLowerCase();
+        int dot = name.lastIndexOf('.');
+        return switch(dot == -1 ? "" : name.substring(dot + 1)) {
+            case "bin", "rom" -> RAW;
+            case "prg" -> PRG;
+            case "hex", "ihex" -> INTEL_HEX;
+            case "s19", "s28", "s37", "srec", "mot" -> S_RECORD;
+            case "nes" -> INES;
+            case "xex" -> SEGMENTED;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package nazario.emulator.util;
+
+/// Aggregate result of running a batch of machines, see {@link nazario.emulator.MachineRunner MachineRunner}.
+public record RunStatistics(int machines, long instructions, long cycles, long nanos) {
+    public double instructionsPerSecond() {
+        return nanos == 0 ? 0 : instructions * 1_000_000_000.0 / nanos;
+    }
+
+    public double cyclesPerSecond() {
+        return nanos == 0 ? 0 : cycles * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d machines, %d instructions, %d cycles in %.3f ms (%.0f instructions/s, %.0f cycles/s)", machines, instructions, cycles, nanos / 1_000_000.0, instructionsPerSecond(), cyclesPerSecond());
+    }
+}
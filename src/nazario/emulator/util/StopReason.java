@@ -0,0 +1,31 @@
+package nazario.emulator.util;
+
+/// Codes returned by {@link nazario.emulator.Cpu#step() Cpu.step()} and {@link nazario.emulator.Cpu#run() Cpu.run()}.
+///
+/// The instruction that stopped a run is not executed and the program counter is left on it, so {@link nazario.emulator.Cpu#getProgramCounter() getProgramCounter()} is the faulting address.
+public final class StopReason {
+    /// The instruction was executed, only returned by {@link nazario.emulator.Cpu#step() step()}.
+    public static final int NONE = 0;
+    /// A BRK ($00) was fetched.
+    public static final int BRK = 1;
+    /// One of the JAM opcodes of {@link nazario.emulator.IllegalInstructionSet IllegalInstructionSet} was fetched.
+    public static final int JAM = 2;
+    /// The cycle budget of {@link nazario.emulator.Cpu#run(long, long) run(long, long)} was used up.
+    public static final int CYCLE_BUDGET = 3;
+    /// The deadline of {@link nazario.emulator.Cpu#run(long, long) run(long, long)} has passed.
+    public static final int TIME_BUDGET = 4;
+    /// The program counter reached a breakpoint set with {@link nazario.emulator.Cpu#setBreakpoint(int, boolean) setBreakpoint(int, boolean)}.
+    public static final int BREAKPOINT = 5;
+    /// An opcode without a handler, an illegal opcode while they are disabled or JMP indirect.
+    public static final int UNIMPLEMENTED_OPCODE = 6;
+    /// A stack operation would have moved outside of the memory the stack pointer can address.
+    public static final int STACK_FAULT = 7;
+
+    private static final String[] NAMES = {"NONE", "BRK", "JAM", "CYCLE_BUDGET", "TIME_BUDGET", "BREAKPOINT", "UNIMPLEMENTED_OPCODE", "STACK_FAULT"};
+
+    private StopReason() {}
+
+    public static String getName(int reason) {
+        return reason >= 0 && reason < NAMES.length ? NAMES[reason] : "UNKNOWN";
+    }
+}
@@ -0,0 +1,261 @@
+package nazario.emulator;
+
+import nazario.emulator.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Runs seeded random programs on the table dispatch of {@link InstructionSet}, the interpreter, {@link SuperInstructions} and the {@link BlockCompiler} and checks that every tier ends in the same state.
+///
+/// A program is a random loop body at $0600 repeated often enough for its block to be compiled, the stack pointer starts anywhere from the middle of the stack to either of its limits.
+/// Programs that do not stop within {@link #MAX_INSTRUCTIONS} on the table dispatch are skipped, a tier that does not stop at all where the table does fails the test.
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class ExecutionTierTest {
+    private static final int START = 0x0600;
+    private static final int SUBROUTINE = 0x0700;
+    private static final int LOOP_COUNTER = 0xFF;
+    private static final int MAX_INSTRUCTIONS = 300_000;
+    private static final long MAX_CYCLES = 10_000_000L;
+    private static final long MAX_NANOS = 10_000_000_000L;
+    private static final int PROGRAMS = 1000;
+
+    private static final short[] STACK_LIMITS = {0, 1, 2, 3, -1, Short.MIN_VALUE, Short.MAX_VALUE - 3, Short.MAX_VALUE - 2, Short.MAX_VALUE - 1, Short.MAX_VALUE};
+    private static final int[] STACK_OPERATIONS = {0x48, 0x08, 0x68, 0x28};
+
+    /// Interpreter, fusions, compiled blocks and both, as {superInstructions, blockCompiler}.
+    private static final boolean[][] TIERS = {{false, false}, {true, false}, {false, true}, {true, true}};
+
+    /// Everything a tier leaves behind except the cycles, the table dispatch only counts base cycles.
+    private record State(int stopReason, int programCounter, int accumulator, int registerX, int registerY, int processorStatus, int stackPointer, long instructions, long memoryHash) {
+        @Override
+        public String toString() {
+            return String.format("%s at $%04X, A=%02X X=%02X Y=%02X P=%02X SP=%d, %d instructions, memory %08x", StopReason.getName(this.stopReason), this.programCounter,
+                    this.accumulator, this.registerX, this.registerY, this.processorStatus, this.stackPointer, this.instructions, this.memoryHash);
+        }
+    }
+
+    private record Program(String name, byte[] image, byte accumulator, byte registerX, byte registerY, byte processorStatus, short stackPointer, boolean illegalOpcodes) {
+        Memory memory() {
+            Memory memory = new Memory();
+            memory.writeBlock(0, this.image, 0, this.image.length);
+            memory.stackPointer = this.stackPointer;
+            return memory;
+        }
+
+        Registrars registrars() {
+            Registrars registrars = new Registrars();
+            registrars.accumulator = this.accumulator;
+            registrars.registerX = this.registerX;
+            registrars.registerY = this.registerY;
+            registrars.setProcessorStatus(this.processorStatus);
+            return registrars;
+        }
+    }
+
+    @Test
+    public void legalPrograms() {
+        assertTiersAgree(false);
+    }
+
+    @Test
+    public void illegalPrograms() {
+        assertTiersAgree(true);
+    }
+
+    /// Loops that push or pull until the stack pointer runs into one of its limits, rising loops start above the code and falling ones below it so that pushes never overwrite it.
+    @Test
+    public void stackLimits() {
+        byte[][] rising = {
+                {0x48, 0x4C, 0x00, 0x06},                   // PHA
+                {0x08, 0x48, 0x68, 0x08, 0x4C, 0x00, 0x06}, // PHP, PHA, PLA, PHP
+                {0x20, 0x00, 0x06},                         // JSR to itself
+        };
+        byte[][] falling = {
+                {0x68, 0x4C, 0x00, 0x06},                   // PLA
+                {0x28, 0x68, 0x48, 0x68, 0x4C, 0x00, 0x06}, // PLP, PLA, PHA, PLA
+        };
+        for(byte[] loop : rising) for(short stackPointer : new short[] {0x0800, Short.MAX_VALUE - 2}) assertStackFault(loop, stackPointer);
+        for(byte[] loop : falling) for(short stackPointer : new short[] {0x05FF, 2}) assertStackFault(loop, stackPointer);
+    }
+
+    private static void assertStackFault(byte[] loop, short stackPointer) {
+        byte[] image = new byte[0x10000];
+        System.arraycopy(loop, 0, image, START, loop.length);
+        Program program = new Program("loop " + HexFormat.of().formatHex(loop) + " from SP=" + stackPointer, image, (byte) 0, (byte) 0, (byte) 0, (byte) 0x20, stackPointer, false);
+
+        State expected = runTable(program);
+        assertNotNull(expected, program.name() + " did not stop");
+        assertEquals(StopReason.STACK_FAULT, expected.stopReason(), program.name());
+        assertAllTiers(program, expected);
+    }
+
+    private static void assertTiersAgree(boolean illegalOpcodes) {
+        int skipped = 0;
+        for(int seed = 0;seed<PROGRAMS;seed++) {
+            Program program = randomProgram(seed, illegalOpcodes);
+            State expected = runTable(program);
+            if(expected == null) {
+                skipped++;
+                continue;
+            }
+            assertAllTiers(program, expected);
+        }
+        assertTrue(skipped < PROGRAMS / 4, skipped + " of " + PROGRAMS + " programs did not stop");
+    }
+
+    private static void assertAllTiers(Program program, State expected) {
+        long interpretedCycles = -1;
+        for(boolean[] tier : TIERS) {
+            String name = String.format("%s, superInstructions=%b, blockCompiler=%b, body %s", program.name(), tier[0], tier[1], HexFormat.of().formatHex(program.image(), START, START + 48));
+
+            Memory memory = program.memory();
+            Cpu cpu = new Cpu(memory, program.registrars(), program.illegalOpcodes());
+            cpu.setSuperInstructionsEnabled(tier[0]);
+            cpu.setBlockCompilerEnabled(tier[1]);
+            cpu.setProgramCounter(START);
+            int reason = cpu.run(MAX_CYCLES, System.nanoTime() + MAX_NANOS);
+
+            Registrars registrars = cpu.getRegistrars();
+            State state = new State(reason, cpu.getProgramCounter(), registrars.accumulator & 0xFF, registrars.registerX & 0xFF, registrars.registerY & 0xFF,
+                    registrars.getProcessorStatus() & 0xFF, memory.getStackPointer(), cpu.getInstructionCount(), hash(memory));
+            assertEquals(expected, state, name);
+
+            if(interpretedCycles == -1) interpretedCycles = cpu.getCycles();
+            else assertEquals(interpretedCycles, cpu.getCycles(), name + ", cycles");
+        }
+    }
+
+    /// Runs program on the table dispatch the original `Main` used, or returns null if it does not stop within {@link #MAX_INSTRUCTIONS}.
+    ///
+    /// The table has no stop reasons, so this loop stops where {@link Cpu} would: on BRK, an opcode without a handler, JMP indirect, a JAM and a stack operation that would leave the stack.
+    private static State runTable(Program program) {
+        Pair<InstructionInfo, InstructionsFunction>[] instructions = InstructionSet.getInstructions();
+        if(program.illegalOpcodes()) instructions = IllegalInstructionSet.addIllegalInstructions(instructions);
+
+        Memory memory = program.memory();
+        Registrars registrars = program.registrars();
+        int programCounter = START;
+        long count = 0;
+        int reason;
+        while(true) {
+            if(count == MAX_INSTRUCTIONS) return null;
+
+            int opcode = Byte.toUnsignedInt(memory.getValue(programCounter));
+            Pair<InstructionInfo, InstructionsFunction> instruction = instructions[opcode];
+            if(opcode == 0x00) {
+                reason = StopReason.BRK;
+                break;
+            }
+            if(instruction == null || opcode == 0x6C) {
+                reason = StopReason.UNIMPLEMENTED_OPCODE;
+                break;
+            }
+            if(stackFaults(opcode, memory.getStackPointer())) {
+                reason = StopReason.STACK_FAULT;
+                break;
+            }
+
+            try {
+                programCounter = Short.toUnsignedInt(instruction.right().apply(programCounter, memory, registrars, instruction.left()));
+            } catch (ProcessorJamInstructionCalled e) {
+                reason = StopReason.JAM;
+                break;
+            }
+            count++;
+        }
+
+        return new State(reason, programCounter, registrars.accumulator & 0xFF, registrars.registerX & 0xFF, registrars.registerY & 0xFF,
+                registrars.getProcessorStatus() & 0xFF, memory.getStackPointer(), count, hash(memory));
+    }
+
+    /// Whether the stack operation opcode would index outside of the stack, see {@link StopReason#STACK_FAULT}.
+    private static boolean stackFaults(int opcode, int stackPointer) {
+        int pushes = switch(opcode) {
+            case 0x48, 0x08 -> 1;
+            case 0x20 -> 2;
+            default -> 0;
+        };
+        int pulls = switch(opcode) {
+            case 0x68, 0x28 -> 1;
+            case 0x60 -> 2;
+            default -> 0;
+        };
+        if(pushes == 0 && pulls == 0) return false;
+        return stackPointer < Math.max(pulls - 1, 0) || stackPointer + Math.max(pushes - 1, 0) > Short.MAX_VALUE;
+    }
+
+    /// A random loop body at {@link #START} followed by `DEC $FF; BEQ +3; JMP $0600; BRK`, in random memory with random registers.
+    ///
+    /// Absolute operands stay below the code so that most programs stop, indirect ones go wherever the random pointers point.
+    private static Program randomProgram(long seed, boolean illegalOpcodes) {
+        Random random = new Random(seed);
+        Pair<InstructionInfo, InstructionsFunction>[] instructions = InstructionSet.getInstructions();
+        if(illegalOpcodes) instructions = IllegalInstructionSet.addIllegalInstructions(instructions);
+
+        List<InstructionInfo> candidates = new ArrayList<>();
+        for(Pair<InstructionInfo, InstructionsFunction> instruction : instructions) {
+            if(instruction == null) continue;
+            int opcode = instruction.left().opcode();
+            if(opcode == 0x00 || opcode == 0x20 || opcode == 0x4C || opcode == 0x6C || opcode == 0x60) continue;
+            if(instruction.left().cycles() == 0 && random.nextInt(8) != 0) continue; // JAM ends the program, keep it rare
+            candidates.add(instruction.left());
+        }
+
+        byte[] image = new byte[0x10000];
+        random.nextBytes(image);
+        image[LOOP_COUNTER] = (byte) (70 + random.nextInt(120));
+        image[SUBROUTINE] = 0x60;
+
+        int address = START;
+        int length = 1 + random.nextInt(24);
+        for(int i = 0;i<length;i++) {
+            int roll = random.nextInt(100);
+            if(roll < 3) {
+                address = put(image, address, 0x20, SUBROUTINE & 0xFF, SUBROUTINE >>> 8);
+                continue;
+            }
+            if(roll < 18) {
+                address = put(image, address, STACK_OPERATIONS[random.nextInt(STACK_OPERATIONS.length)]);
+                continue;
+            }
+
+            InstructionInfo info = candidates.get(random.nextInt(candidates.size()));
+            image[address] = (byte) info.opcode();
+            switch(info.mode()) {
+                case RELATIVE -> image[address + 1] = (byte) (random.nextInt(19) - 6);
+                case ZERO_PAGE, ZERO_PAGE_X, ZERO_PAGE_Y, INDIRECT_X, INDIRECT_Y -> image[address + 1] = (byte) random.nextInt(LOOP_COUNTER);
+                case ABSOLUTE, ABSOLUTE_X, ABSOLUTE_Y -> {
+                    image[address + 1] = (byte) random.nextInt(0x100);
+                    image[address + 2] = (byte) random.nextInt(START >>> 8);
+                }
+                default -> {
+                    // Immediate operands stay random
+                }
+            }
+            address += info.size();
+        }
+        put(image, address, 0xC6, LOOP_COUNTER, 0xF0, 0x03, 0x4C, START & 0xFF, START >>> 8, 0x00);
+
+        short stackPointer = random.nextInt(3) == 0 ? STACK_LIMITS[random.nextInt(STACK_LIMITS.length)] : (short) (0x0100 + random.nextInt(0x100));
+        String name = (illegalOpcodes ? "illegal" : "legal") + " seed " + seed;
+        return new Program(name, image, (byte) random.nextInt(), (byte) random.nextInt(), (byte) random.nextInt(), (byte) random.nextInt(), stackPointer, illegalOpcodes);
+    }
+
+    private static int put(byte[] image, int address, int... bytes) {
+        for(int value : bytes) image[address++] = (byte) value;
+        return address;
+    }
+
+    private static long hash(Memory memory) {
+        CRC32C crc = new CRC32C();
+        crc.update(memory.getMemory(), 0, 0x10000);
+        return crc.getValue();
+    }
+}